@@ -4,6 +4,7 @@ plugins {
     id("org.javamodularity.moduleplugin") version "2.0.0"
     id("org.openjfx.javafxplugin") version "0.1.0"
     id("org.beryx.jlink") version "3.1.3"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.serial"
@@ -30,6 +31,16 @@ application {
     mainClass.set("org.serial.serial.SerialApp")
 }
 
+// Same pipeline without the JavaFX toolkit: ./gradlew runHeadless -Pconfig=bridge.properties
+tasks.register<JavaExec>("runHeadless") {
+    group = "application"
+    description = "Runs the bridge without a UI from a properties file"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainModule.set("org.serial.serial")
+    mainClass.set("org.serial.serial.HeadlessApp")
+    args(project.findProperty("config")?.toString() ?: "bridge.properties")
+}
+
 
 javafx {
     version = "17"
@@ -79,6 +90,18 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// Benchmarks live in src/jmh/java; run with ./gradlew jmh (optionally -PjmhIncludes=Payload)
+jmh {
+    jmhVersion = "1.37"
+    // Allocation rate per benchmark alongside throughput and the SampleTime percentiles
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+    if (project.hasProperty("jmhIncludes")) {
+        includes = listOf(project.property("jmhIncludes").toString())
+    }
+}
+
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
@@ -97,6 +120,12 @@ jlink {
 
     }
 
+    secondaryLauncher {
+        name = "serial-mqtt-bridge-headless"
+        mainClass = "org.serial.serial.HeadlessApp"
+        moduleName = "org.serial.serial"
+    }
+
     //forceMerge("ALL-MODULES")
 
     mergedModule {
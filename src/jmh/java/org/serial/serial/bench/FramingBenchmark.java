@@ -0,0 +1,61 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.FrameDecoder;
+import org.serial.serial.service.Framing;
+import org.serial.serial.service.WeightParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// The body of the SerialService reader loop without the port: one read chunk is framed
+// and every frame is parsed, exactly as dispatchFrame does it.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FramingBenchmark {
+    private static final String FRAME = "ST,GS,+  12.345kg";
+
+    // Bytes per read; a 100 ms read at 9600 baud returns roughly one kilobyte
+    @Param({"64", "1024"})
+    public int chunkSize;
+
+    @Param({"CRLF", "STX_ETX"})
+    public Framing framing;
+
+    private byte[] chunk;
+    private FrameDecoder decoder;
+    private WeightParser parser;
+    private long timestampMillis;
+
+    @Setup
+    public void setup() {
+        StringBuilder data = new StringBuilder();
+        while (data.length() < chunkSize) {
+            data.append(framing == Framing.STX_ETX ? "\u0002" + FRAME + "\u0003" : FRAME + "\r\n");
+        }
+        chunk = data.substring(0, chunkSize).getBytes(StandardCharsets.US_ASCII);
+        decoder = new FrameDecoder(framing);
+        parser = new WeightParser();
+        timestampMillis = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public void frameOnly(Blackhole blackhole) {
+        decoder.decode(chunk, 0, chunk.length, (buffer, offset, length) -> blackhole.consume(length));
+    }
+
+    @Benchmark
+    public void frameAndParse(Blackhole blackhole) {
+        decoder.decode(chunk, 0, chunk.length, (buffer, offset, length) -> {
+            String raw = new String(buffer, offset, length, StandardCharsets.US_ASCII);
+            WeightReading reading = parser.parse(buffer, offset, length, timestampMillis, 0, raw);
+            blackhole.consume(reading);
+        });
+    }
+}
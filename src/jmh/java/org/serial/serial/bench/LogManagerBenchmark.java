@@ -0,0 +1,47 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.serial.serial.util.LogLevel;
+import org.serial.serial.util.LogManager;
+
+import java.util.concurrent.TimeUnit;
+
+// LogManager.log from several threads at once, as the port readers, publisher threads
+// and the UI thread do. Writes go to the logs directory of the working directory.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LogManagerBenchmark {
+    @Param({"true", "false"})
+    public boolean async;
+
+    private LogManager logManager;
+
+    @Setup
+    public void setup() {
+        logManager = LogManager.getInstance();
+        logManager.setConsoleEnabled(false);
+        logManager.setLevel(LogLevel.INFO);
+        logManager.setAsync(async);
+    }
+
+    @TearDown
+    public void tearDown() {
+        logManager.shutdown();
+    }
+
+    @Benchmark
+    public void info() {
+        logManager.info("Published to weight/COM3: {\"weight\":12.345,\"unit\":\"kg\"}");
+    }
+
+    // Below the threshold: should cost no more than the level check
+    @Benchmark
+    public void filteredDebug() {
+        logManager.debug("Published to weight/COM3: {\"weight\":12.345,\"unit\":\"kg\"}");
+    }
+}
@@ -0,0 +1,53 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.serial.serial.service.MqttService;
+import org.serial.serial.service.PublishMode;
+
+import java.util.concurrent.TimeUnit;
+
+// MqttService.publish against StubBroker on the loopback interface. SYNC measures the
+// PUBACK round trip; ASYNC measures throughput with the in-flight window.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MqttPublishBenchmark {
+    private static final String TOPIC = "weight/COM3";
+    private static final String PAYLOAD =
+            "{\"timestamp\":\"2024-01-01 12:00:00\",\"weight\":12.345,\"unit\":\"kg\",\"stability\":\"STABLE\"}";
+
+    @Param({"SYNC", "ASYNC"})
+    public PublishMode publishMode;
+
+    private StubBroker broker;
+    private MqttService mqttService;
+
+    @Setup
+    public void setup() throws Exception {
+        broker = new StubBroker();
+        broker.start();
+        mqttService = new MqttService();
+        mqttService.setPublishMode(publishMode);
+        mqttService.connect("tcp://127.0.0.1:" + broker.getPort(), null, null);
+    }
+
+    // Outstanding ASYNC deliveries must not leak into the next iteration
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        mqttService.awaitDeliveries(10_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mqttService.disconnect();
+        broker.stop();
+    }
+
+    @Benchmark
+    public void publish() throws Exception {
+        mqttService.publish(TOPIC, PAYLOAD);
+    }
+}
@@ -0,0 +1,74 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.PayloadEncoder;
+import org.serial.serial.service.PayloadFormat;
+import org.serial.serial.service.PayloadSchema;
+import org.serial.serial.service.WeightParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Payload construction as done per reading in Bridge.handleReading, for each format.
+// PayloadSizeComparison prints the matching payload sizes.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+    private static final String PORT = "COM3";
+
+    @Param({"JSON", "CBOR"})
+    public PayloadFormat format;
+
+    private final PayloadEncoder encoder = new PayloadEncoder();
+    private PayloadSchema defaultSchema;
+    private PayloadSchema fullSchema;
+    private WeightReading valid;
+    private WeightReading invalid;
+    private long timestampMillis;
+
+    @Setup
+    public void setup() {
+        timestampMillis = System.currentTimeMillis();
+        defaultSchema = PayloadSchema.parse(PayloadSchema.DEFAULT_FIELDS, "", format);
+        fullSchema = PayloadSchema.parse(PayloadSizeComparison.FULL_FIELDS, "scale-01", format);
+        valid = parse("ST,GS,+  12.345kg");
+        invalid = parse("ERR \"overload\"");
+    }
+
+    private WeightReading parse(String frame) {
+        byte[] bytes = frame.getBytes(StandardCharsets.US_ASCII);
+        return new WeightParser().parse(bytes, 0, bytes.length, timestampMillis, 0, frame);
+    }
+
+    @Benchmark
+    public String timestamp() {
+        return encoder.formatTimestamp(timestampMillis);
+    }
+
+    // Into the reusable buffer only: should not allocate
+    @Benchmark
+    public int validReading() {
+        return encoder.encode(defaultSchema, PORT, valid);
+    }
+
+    @Benchmark
+    public int invalidReading() {
+        return encoder.encode(defaultSchema, PORT, invalid);
+    }
+
+    @Benchmark
+    public int fullSchema() {
+        return encoder.encode(fullSchema, PORT, valid);
+    }
+
+    // What the bridge hands to the pipeline: one exact-size array per message
+    @Benchmark
+    public byte[] validReadingArray() {
+        return encoder.encodeToArray(defaultSchema, PORT, valid);
+    }
+}
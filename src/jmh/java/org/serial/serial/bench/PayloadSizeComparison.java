@@ -0,0 +1,128 @@
+package org.serial.serial.bench;
+
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.PayloadDecoder;
+import org.serial.serial.service.PayloadEncoder;
+import org.serial.serial.service.PayloadFormat;
+import org.serial.serial.service.PayloadSchema;
+import org.serial.serial.service.SeriesDecoder;
+import org.serial.serial.service.SeriesEncoder;
+import org.serial.serial.service.WeightParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Prints the encoded size of typical readings in every format, the CBOR payloads
+// decoded again by the reference decoder, and the batch sizes over the scale capture
+// (checking that every series decodes to the readings it was built from). Run with
+//   java -cp build/libs/serial-1.0-SNAPSHOT-jmh.jar org.serial.serial.bench.PayloadSizeComparison
+public class PayloadSizeComparison {
+    static final String FULL_FIELDS = "timestamp,deviceId,port,weight,unit,type,stability,stable";
+    private static final String[] FRAMES = {"ST,GS,+  12.345kg", "US,NT,-   0.500 lb", "  1200 g", "ERR overload"};
+    private static final int BATCH_SIZE = 50;
+
+    public static void main(String[] args) {
+        PayloadEncoder encoder = new PayloadEncoder();
+        WeightParser parser = new WeightParser();
+        long timestampMillis = System.currentTimeMillis();
+
+        StringBuilder decoded = new StringBuilder();
+        for (String fields : new String[]{PayloadSchema.DEFAULT_FIELDS, FULL_FIELDS}) {
+            System.out.println("Fields: " + fields);
+            for (String frame : FRAMES) {
+                byte[] bytes = frame.getBytes(StandardCharsets.US_ASCII);
+                WeightReading reading = parser.parse(bytes, 0, bytes.length, timestampMillis, 0, frame);
+                StringBuilder line = new StringBuilder(String.format("  %-22s", "'" + frame + "'"));
+                int jsonSize = 0;
+                for (PayloadFormat format : PayloadFormat.values()) {
+                    if (format == PayloadFormat.SERIES) {
+                        continue;
+                    }
+                    PayloadSchema schema = PayloadSchema.parse(fields, "scale-01", format);
+                    byte[] payload = encoder.encodeToArray(schema, "COM3", reading);
+                    if (format == PayloadFormat.JSON) {
+                        jsonSize = payload.length;
+                    } else if (fields.equals(FULL_FIELDS)) {
+                        decoded.append("    ").append(PayloadDecoder.decodeReadings(payload)).append('\n');
+                    }
+                    line.append(String.format("  %s %4d B", format.name(), payload.length));
+                    if (format != PayloadFormat.JSON) {
+                        line.append(String.format(" (%.0f%%)", 100.0 * payload.length / jsonSize));
+                    }
+                }
+                System.out.println(line);
+            }
+        }
+
+        System.out.print("Decoded CBOR:\n" + decoded);
+
+        List<WeightReading> capture = ScaleCapture.load(timestampMillis);
+        System.out.println("Scale capture, " + capture.size() + " readings in batches of " + BATCH_SIZE
+                + ", default fields:");
+        long jsonSize = 0;
+        for (PayloadFormat format : PayloadFormat.values()) {
+            long size = format == PayloadFormat.SERIES ? seriesSize(capture)
+                    : batchSize(encoder, PayloadSchema.parse(PayloadSchema.DEFAULT_FIELDS, "", format), capture);
+            if (format == PayloadFormat.JSON) {
+                jsonSize = size;
+            }
+            System.out.println(String.format("  %-6s %7d B  %5.1f B/reading  %5.1f%%", format.name(), size,
+                    (double) size / capture.size(), 100.0 * size / jsonSize));
+        }
+    }
+
+    private static long batchSize(PayloadEncoder encoder, PayloadSchema schema, List<WeightReading> readings) {
+        long size = 0;
+        for (int i = 0; i < readings.size(); i++) {
+            if (i % BATCH_SIZE == 0) {
+                size += 2;
+            } else if (schema.getFormat() == PayloadFormat.JSON) {
+                size++;
+            }
+            size += encoder.encode(schema, "COM3", readings.get(i));
+        }
+        return size;
+    }
+
+    // Batches as ReadingBatcher closes them: full, or when the unit changes
+    private static long seriesSize(List<WeightReading> readings) {
+        SeriesEncoder encoder = new SeriesEncoder();
+        List<WeightReading> batch = new ArrayList<>();
+        long size = 0;
+        for (int i = 0; i <= readings.size(); i++) {
+            WeightReading reading = i < readings.size() ? readings.get(i) : null;
+            if (encoder.getCount() > 0 && (reading == null || encoder.getCount() == BATCH_SIZE
+                    || !encoder.accepts(reading))) {
+                byte[] payload = encoder.toByteArray();
+                verify(batch, SeriesDecoder.decode(payload));
+                size += payload.length;
+                encoder.reset();
+                batch.clear();
+            }
+            if (reading != null) {
+                encoder.add(reading);
+                batch.add(reading);
+            }
+        }
+        return size;
+    }
+
+    private static void verify(List<WeightReading> expected, List<WeightReading> decoded) {
+        if (decoded.size() != expected.size()) {
+            throw new IllegalStateException("Series decoded to " + decoded.size() + " readings, expected "
+                    + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            WeightReading a = expected.get(i);
+            WeightReading b = decoded.get(i);
+            boolean same = a.getTimestampMillis() == b.getTimestampMillis() && a.isValid() == b.isValid()
+                    && (a.isValid() ? a.getValue() == b.getValue() && a.getDecimals() == b.getDecimals()
+                    && a.getUnit() == b.getUnit() && a.getType() == b.getType()
+                    && a.getStability() == b.getStability() : a.getRaw().equals(b.getRaw()));
+            if (!same) {
+                throw new IllegalStateException("Series round trip differs at " + a.getRaw());
+            }
+        }
+    }
+}
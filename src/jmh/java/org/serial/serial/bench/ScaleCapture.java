@@ -0,0 +1,45 @@
+package org.serial.serial.bench;
+
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.WeightParser;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Readings of scale-capture.txt: "<ms since start> <frame>" per line, parsed as the
+// bridge would, with timestamps starting at 'start'
+final class ScaleCapture {
+    static final String RESOURCE = "/scale-capture.txt";
+
+    private ScaleCapture() {
+    }
+
+    static List<WeightReading> load(long start) {
+        WeightParser parser = new WeightParser();
+        List<WeightReading> readings = new ArrayList<>();
+        try (InputStream in = ScaleCapture.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " not on the classpath");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                String frame = line.substring(space + 1);
+                byte[] bytes = frame.getBytes(StandardCharsets.US_ASCII);
+                readings.add(parser.parse(bytes, 0, bytes.length, start + Long.parseLong(line.substring(0, space)),
+                        0, frame));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read " + RESOURCE + ": " + e.getMessage(), e);
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,106 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.PayloadDecoder;
+import org.serial.serial.service.PayloadEncoder;
+import org.serial.serial.service.PayloadFormat;
+import org.serial.serial.service.PayloadSchema;
+import org.serial.serial.service.SeriesDecoder;
+import org.serial.serial.service.SeriesEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of building (and reading back) one batch of captured readings per format, the
+// way ReadingBatcher assembles them. PayloadSizeComparison prints the sizes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeriesBenchmark {
+    private static final String PORT = "COM3";
+
+    @Param({"50"})
+    public int batchSize;
+
+    private final PayloadEncoder encoder = new PayloadEncoder();
+    private final SeriesEncoder seriesEncoder = new SeriesEncoder();
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(8192);
+    private PayloadSchema jsonSchema;
+    private PayloadSchema cborSchema;
+    private List<WeightReading> readings;
+    private int offset;
+    private byte[] cborBatch;
+    private byte[] seriesBatch;
+
+    @Setup
+    public void setup() {
+        jsonSchema = PayloadSchema.parse(PayloadSchema.DEFAULT_FIELDS, "", PayloadFormat.JSON);
+        cborSchema = PayloadSchema.parse(PayloadSchema.DEFAULT_FIELDS, "", PayloadFormat.CBOR);
+        readings = ScaleCapture.load(System.currentTimeMillis());
+        cborBatch = encodeBatch(PayloadFormat.CBOR, cborSchema);
+        seriesBatch = series();
+    }
+
+    // Next window of the capture, so the encoders see changing data
+    private int nextOffset() {
+        offset += batchSize;
+        if (offset + batchSize > readings.size()) {
+            offset = 0;
+        }
+        return offset;
+    }
+
+    private byte[] encodeBatch(PayloadFormat format, PayloadSchema schema) {
+        int start = nextOffset();
+        batch.reset();
+        batch.writeBytes(format == PayloadFormat.JSON ? new byte[]{'['} : new byte[]{(byte) 0x9F});
+        for (int i = start; i < start + batchSize; i++) {
+            if (i > start && format == PayloadFormat.JSON) {
+                batch.write(',');
+            }
+            int length = encoder.encode(schema, PORT, readings.get(i));
+            batch.write(encoder.getBuffer(), 0, length);
+        }
+        batch.write(format == PayloadFormat.JSON ? ']' : 0xFF);
+        return batch.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return encodeBatch(PayloadFormat.JSON, jsonSchema);
+    }
+
+    @Benchmark
+    public byte[] cbor() {
+        return encodeBatch(PayloadFormat.CBOR, cborSchema);
+    }
+
+    @Benchmark
+    public byte[] series() {
+        int start = nextOffset();
+        seriesEncoder.reset();
+        for (int i = start; i < start + batchSize; i++) {
+            WeightReading reading = readings.get(i);
+            if (!seriesEncoder.accepts(reading)) {
+                break;
+            }
+            seriesEncoder.add(reading);
+        }
+        return seriesEncoder.toByteArray();
+    }
+
+    @Benchmark
+    public List<?> decodeCbor() {
+        return PayloadDecoder.decodeReadings(cborBatch);
+    }
+
+    @Benchmark
+    public List<WeightReading> decodeSeries() {
+        return SeriesDecoder.decode(seriesBatch);
+    }
+}
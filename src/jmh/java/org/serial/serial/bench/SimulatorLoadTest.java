@@ -0,0 +1,53 @@
+package org.serial.serial.bench;
+
+import org.serial.serial.service.Bridge;
+import org.serial.serial.service.PortChannel;
+import org.serial.serial.service.PortConfig;
+import org.serial.serial.service.PublishMode;
+import org.serial.serial.service.ReadMode;
+import org.serial.serial.service.SimulatorTransport;
+
+// Drives the whole bridge (framing, parsing, filter, batcher, publishing) from simulator
+// ports against StubBroker, at rates no real indicator reaches. Run with
+//   java -cp build/libs/serial-1.0-SNAPSHOT-jmh.jar org.serial.serial.bench.SimulatorLoadTest \
+//       [ports] [seconds] [simulator options]
+// e.g. "4 10 speed=0" (as fast as possible) or "8 30 rate=2000;garbage=0.01;disconnect=0.0001".
+public class SimulatorLoadTest {
+    public static void main(String[] args) throws Exception {
+        int portCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String options = args.length > 2 ? args[2] : "rate=1000";
+
+        StubBroker broker = new StubBroker();
+        broker.start();
+        Bridge bridge = new Bridge();
+        bridge.getMqttService().setPublishMode(PublishMode.ASYNC);
+        bridge.getMqttService().connect("tcp://127.0.0.1:" + broker.getPort(), null, null);
+        for (int i = 0; i < portCount; i++) {
+            // Distinct seeds so the ports do not fault in lockstep
+            PortConfig config = new PortConfig(SimulatorTransport.DEFAULT_PORT + ";seed=" + i + ";" + options,
+                    "load/port" + i);
+            config.setReadMode(ReadMode.STREAMING);
+            bridge.getPortManager().addPort(config);
+        }
+
+        long start = System.nanoTime();
+        if (bridge.start() == 0) {
+            throw new Exception("No simulator port could be started with options: " + options);
+        }
+        Thread.sleep(seconds * 1000L);
+        bridge.stop();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long frames = 0;
+        for (PortChannel channel : bridge.getPortManager().getChannels()) {
+            frames += channel.getSerialService().getFramesRead();
+        }
+        System.out.println(String.format("%d ports, %s: %d frames in %.1f s = %.0f frames/s", portCount, options,
+                frames, elapsed, frames / elapsed));
+        System.out.println("Publish: " + bridge.getPublishPipeline().getStatsSummary());
+        bridge.logStatistics();
+        bridge.shutdown();
+        broker.stop();
+    }
+}
@@ -0,0 +1,128 @@
+package org.serial.serial.bench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+
+// Just enough of MQTT 3.1.1 to let the Paho client connect and publish: CONNECT is
+// always accepted, QoS 1 PUBLISH is acknowledged and the payload discarded.
+class StubBroker {
+    private static final int CONNECT = 1;
+    private static final int PUBLISH = 3;
+    private static final int SUBSCRIBE = 8;
+    private static final int PINGREQ = 12;
+    private static final int DISCONNECT = 14;
+
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        running = true;
+        Thread acceptThread = new Thread(this::acceptLoop, "stub-broker");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread connectionThread = new Thread(() -> serve(socket), "stub-broker-connection");
+                connectionThread.setDaemon(true);
+                connectionThread.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Stub broker accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            byte[] body = new byte[256];
+            while (true) {
+                int header = in.read();
+                if (header < 0) {
+                    return;
+                }
+                int length = readRemainingLength(in);
+                if (length > body.length) {
+                    body = new byte[length];
+                }
+                in.readFully(body, 0, length);
+
+                switch (header >>> 4) {
+                    case CONNECT:
+                        out.write(new byte[]{0x20, 0x02, 0x00, 0x00});
+                        break;
+                    case PUBLISH:
+                        int qos = (header >>> 1) & 0x03;
+                        if (qos > 0) {
+                            // Packet identifier follows the topic name
+                            int topicLength = ((body[0] & 0xFF) << 8) | (body[1] & 0xFF);
+                            out.write(new byte[]{qos == 1 ? (byte) 0x40 : (byte) 0x50, 0x02,
+                                    body[2 + topicLength], body[3 + topicLength]});
+                        }
+                        break;
+                    case SUBSCRIBE:
+                        out.write(new byte[]{(byte) 0x90, 0x03, body[0], body[1], 0x00});
+                        break;
+                    case PINGREQ:
+                        out.write(new byte[]{(byte) 0xD0, 0x00});
+                        break;
+                    case DISCONNECT:
+                        return;
+                    default:
+                        break;
+                }
+                // Acknowledge everything that has already arrived in one write
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (SocketException ignored) {
+            // Client went away
+        } catch (IOException e) {
+            System.err.println("Stub broker connection failed: " + e.getMessage());
+        }
+    }
+
+    private static int readRemainingLength(InputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int digit;
+        do {
+            digit = in.read();
+            if (digit < 0) {
+                throw new IOException("Connection closed inside a packet header");
+            }
+            length |= (digit & 0x7F) << shift;
+            shift += 7;
+        } while ((digit & 0x80) != 0);
+        return length;
+    }
+}
@@ -0,0 +1,52 @@
+package org.serial.serial.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.ui.TrendBuffer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-frame cost of the trend chart: LTTB over a full ring down to one point per pixel
+// column. At 60 fps the frame budget is 16.7 ms.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendBenchmark {
+    @Param({"36000", "360000"})
+    public int points;
+
+    @Param({"1920"})
+    public int width;
+
+    private TrendBuffer buffer;
+    private long[] times;
+    private double[] values;
+
+    @Setup
+    public void setup() {
+        // The scale capture, repeated at 100 readings per second until the ring is full
+        List<WeightReading> readings = ScaleCapture.load(0);
+        readings.removeIf(reading -> !reading.isValid());
+        buffer = new TrendBuffer(points);
+        for (int i = 0; i < points; i++) {
+            buffer.append(i * 10L, readings.get(i % readings.size()).toDouble());
+        }
+        times = new long[width];
+        values = new double[width];
+    }
+
+    @Benchmark
+    public int decimate() {
+        return buffer.decimate(Long.MIN_VALUE, width, times, values);
+    }
+
+    @Benchmark
+    public void appendAndDecimate() {
+        buffer.append(buffer.getLastTime() + 10, 1.0);
+        buffer.decimate(Long.MIN_VALUE, width, times, values);
+    }
+}
@@ -12,10 +12,14 @@ module org.serial.serial {
     requires org.kordamp.ikonli.materialdesign2;
     requires org.eclipse.paho.client.mqttv3;
     requires com.fazecast.jSerialComm;
+    requires java.management;
+    requires jdk.httpserver;
 
     uses org.eclipse.paho.client.mqttv3.internal.NetworkModuleService;
 
     opens org.serial.serial to javafx.fxml;
 
     exports org.serial.serial;
+    // JMX introspects the metrics MXBean interface
+    exports org.serial.serial.metrics;
 }
\ No newline at end of file
@@ -0,0 +1,268 @@
+package org.serial.serial;
+
+import org.serial.serial.metrics.BridgeMetrics;
+import org.serial.serial.metrics.MetricsServer;
+import org.serial.serial.service.Bridge;
+import org.serial.serial.service.BrokerLink;
+import org.serial.serial.service.Framing;
+import org.serial.serial.service.MqttService;
+import org.serial.serial.service.OutboxReplayer;
+import org.serial.serial.service.OverflowPolicy;
+import org.serial.serial.service.PayloadFormat;
+import org.serial.serial.service.PayloadSchema;
+import org.serial.serial.service.PollScheduler;
+import org.serial.serial.service.PublishPipeline;
+import org.serial.serial.service.PortConfig;
+import org.serial.serial.service.PublishMode;
+import org.serial.serial.service.ReadMode;
+import org.serial.serial.service.ReadingBatcher;
+import org.serial.serial.service.ReadingAggregator;
+import org.serial.serial.service.ReadingFilter;
+import org.serial.serial.service.WindowMode;
+import org.serial.serial.store.Outbox;
+import org.serial.serial.store.ReadingStore;
+import org.serial.serial.util.LogLevel;
+import org.serial.serial.util.LogManager;
+import org.serial.serial.util.StartupReport;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+// Runs the bridge from a properties file without loading the JavaFX toolkit, for
+// unattended edge boxes. See bridge.example.properties for the available keys.
+//
+//   java -m org.serial.serial/org.serial.serial.HeadlessApp bridge.properties
+public class HeadlessApp {
+    public static final String DEFAULT_CONFIG_FILE = "bridge.properties";
+    private static final long CONNECT_RETRY_MS = 5000;
+
+    private final Properties config;
+    private final LogManager logManager = LogManager.getInstance();
+    private final Bridge bridge = new Bridge();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private MetricsServer metricsServer;
+    private volatile boolean running = true;
+
+    public HeadlessApp(Properties config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) {
+        Path configFile = Paths.get(args.length > 0 ? args[0] : DEFAULT_CONFIG_FILE);
+        Properties config = new Properties();
+        try (Reader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            config.load(reader);
+        } catch (Exception e) {
+            System.err.println("Cannot read configuration " + configFile.toAbsolutePath() + ": " + e.getMessage());
+            System.exit(2);
+        }
+
+        HeadlessApp app = new HeadlessApp(config);
+        Runtime.getRuntime().addShutdownHook(new Thread(app::shutdown, "shutdown"));
+        try {
+            app.run();
+        } catch (Exception e) {
+            LogManager.getInstance().error("Headless bridge failed: " + e.getMessage());
+            app.shutdown();
+            System.exit(1);
+        }
+    }
+
+    // Blocks until the JVM is asked to stop
+    public void run() throws Exception {
+        logManager.info("Headless bridge starting...");
+        configureLogging();
+        startMetrics();
+        configureBridge();
+        bridge.setReplayRatePerSecond(intProperty("outbox.replayRate", OutboxReplayer.DEFAULT_REPLAY_RATE));
+        bridge.openOutbox(Paths.get(config.getProperty("outbox.dir", Outbox.DEFAULT_DIR)));
+        addFanoutBrokers();
+        String historyDir = config.getProperty("history.dir", ReadingStore.DEFAULT_DIR).trim();
+        if (!historyDir.isEmpty()) {
+            bridge.openHistory(Paths.get(historyDir));
+        }
+
+        int started = bridge.start();
+        if (started == 0) {
+            throw new Exception("No serial port could be opened");
+        }
+        logManager.info("Monitoring " + started + " of " + bridge.getPortManager().getChannels().size()
+                + " ports; " + StartupReport.describe());
+
+        // Readings go to the outbox until the first connection succeeds; after that
+        // MqttService fails over and reconnects on its own
+        connectBroker();
+        stopped.await();
+    }
+
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        bridge.shutdown();
+        bridge.logStatistics();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        logManager.info("Headless bridge stopped");
+        logManager.shutdown();
+        stopped.countDown();
+    }
+
+    private void configureLogging() {
+        logManager.setLevel(LogLevel.valueOf(config.getProperty("log.level", "INFO").trim().toUpperCase()));
+        logManager.setConsoleEnabled(Boolean.parseBoolean(config.getProperty("log.console", "true").trim()));
+        logManager.setMaxFileBytes(intProperty("log.maxFileMB",
+                (int) (LogManager.DEFAULT_MAX_FILE_BYTES >> 20)) * 1024L * 1024L);
+        logManager.setMaxTotalBytes(intProperty("log.maxTotalMB",
+                (int) (LogManager.DEFAULT_MAX_TOTAL_BYTES >> 20)) * 1024L * 1024L);
+        logManager.setMaxAgeDays(intProperty("log.maxAgeDays", LogManager.DEFAULT_MAX_AGE_DAYS));
+        logManager.setFlushIntervalMs(intProperty("log.flushIntervalMs", (int) LogManager.DEFAULT_FLUSH_INTERVAL_MS));
+    }
+
+    private void startMetrics() {
+        int port = intProperty("metrics.port", MetricsServer.DEFAULT_PORT);
+        if (port <= 0) {
+            return;
+        }
+        BridgeMetrics.getInstance().registerMBean();
+        metricsServer = new MetricsServer(port);
+        try {
+            metricsServer.start();
+            logManager.info("Metrics available at http://127.0.0.1:" + metricsServer.getPort() + "/metrics");
+        } catch (Exception e) {
+            logManager.warn("Metrics endpoint not started: " + e.getMessage());
+        }
+    }
+
+    private void configureBridge() throws Exception {
+        MqttService mqttService = bridge.getMqttService();
+        mqttService.setPublishMode(PublishMode.valueOf(config.getProperty("mqtt.publishMode", "ASYNC").trim()));
+        mqttService.setMaxInflight(intProperty("mqtt.maxInflight", MqttService.DEFAULT_MAX_INFLIGHT));
+        mqttService.setProbeIntervalMs(intProperty("mqtt.probeIntervalMs", MqttService.DEFAULT_PROBE_INTERVAL_MS));
+        bridge.getPublishPipeline().setOverflowPolicy(
+                OverflowPolicy.valueOf(config.getProperty("pipeline.overflowPolicy", "DROP_OLDEST").trim()));
+
+        ReadingBatcher readingBatcher = bridge.getReadingBatcher();
+        readingBatcher.setEnabled(Boolean.parseBoolean(config.getProperty("batch.enabled", "false").trim()));
+        readingBatcher.setMaxMessages(intProperty("batch.maxMessages", ReadingBatcher.DEFAULT_MAX_MESSAGES));
+        readingBatcher.setMaxDelayMs(intProperty("batch.maxDelayMs", (int) ReadingBatcher.DEFAULT_MAX_DELAY_MS));
+        readingBatcher.setMaxBatchBytes(intProperty("batch.maxBatchBytes", ReadingBatcher.DEFAULT_MAX_BATCH_BYTES));
+
+        ReadingFilter readingFilter = bridge.getReadingFilter();
+        readingFilter.setEnabled(Boolean.parseBoolean(config.getProperty("filter.enabled", "false").trim()));
+        readingFilter.setDeadband(Double.parseDouble(config.getProperty("filter.deadband",
+                String.valueOf(ReadingFilter.DEFAULT_DEADBAND)).trim()));
+        readingFilter.setHeartbeatMs(intProperty("filter.heartbeatSeconds",
+                (int) (ReadingFilter.DEFAULT_HEARTBEAT_MS / 1000)) * 1000L);
+
+        ReadingAggregator readingAggregator = bridge.getReadingAggregator();
+        readingAggregator.setEnabled(Boolean.parseBoolean(config.getProperty("aggregate.enabled", "false").trim()));
+        readingAggregator.setMode(WindowMode.valueOf(config.getProperty("aggregate.mode", "TUMBLING").trim()));
+        readingAggregator.setWindowMs(intProperty("aggregate.windowMs", (int) ReadingAggregator.DEFAULT_WINDOW_MS));
+        readingAggregator.setSlideMs(intProperty("aggregate.slideMs", (int) ReadingAggregator.DEFAULT_SLIDE_MS));
+        readingAggregator.setMaxSamples(intProperty("aggregate.maxSamples", ReadingAggregator.DEFAULT_MAX_SAMPLES));
+
+        bridge.setPayloadSchema(PayloadSchema.parse(config.getProperty("payload.fields", PayloadSchema.DEFAULT_FIELDS),
+                config.getProperty("payload.deviceId", "").trim(),
+                PayloadFormat.valueOf(config.getProperty("payload.format", "JSON").trim())));
+
+        String ports = config.getProperty("ports", "").trim();
+        if (ports.isEmpty()) {
+            throw new Exception("No ports configured (ports=COM3,COM4)");
+        }
+        String baseTopic = config.getProperty("mqtt.topic", "weight/data").trim();
+        for (String portName : ports.split(",")) {
+            portName = portName.trim();
+            // port.<name>.<key> overrides serial.<key> for a single port
+            PortConfig portConfig = new PortConfig(portName,
+                    config.getProperty("port." + portName + ".topic", baseTopic + "/" + portName).trim());
+            portConfig.setBaudRate(Integer.parseInt(portProperty(portName, "baud",
+                    String.valueOf(PortConfig.DEFAULT_BAUD_RATE))));
+            portConfig.setReadMode(ReadMode.valueOf(portProperty(portName, "readMode", ReadMode.POLLING.name())));
+            portConfig.setFraming(Framing.valueOf(portProperty(portName, "framing", Framing.LINE.name())));
+            portConfig.setFrameLength(Integer.parseInt(portProperty(portName, "frameLength", "0")));
+            if (portConfig.getFraming() == Framing.FIXED_LENGTH && portConfig.getFrameLength() <= 0) {
+                throw new Exception("FIXED_LENGTH framing of " + portName + " needs serial.frameLength or port."
+                        + portName + ".frameLength");
+            }
+            portConfig.setPollIntervalMs(Integer.parseInt(portProperty(portName, "pollIntervalMs",
+                    String.valueOf(PollScheduler.DEFAULT_MIN_INTERVAL_MS))));
+            portConfig.setPollTimeoutMs(Integer.parseInt(portProperty(portName, "pollTimeoutMs",
+                    String.valueOf(PollScheduler.DEFAULT_TIMEOUT_MS))));
+            portConfig.setPollPipelineDepth(Integer.parseInt(portProperty(portName, "pollDepth",
+                    String.valueOf(PollScheduler.DEFAULT_PIPELINE_DEPTH))));
+            bridge.getPortManager().addPort(portConfig);
+            logManager.info("Port added: " + portConfig);
+        }
+    }
+
+    // mqtt.fanout=cloud,backup with mqtt.fanout.<name>.broker etc.; each gets its own queue
+    // and an outbox next to the primary one, and connects in the background
+    private void addFanoutBrokers() {
+        String names = config.getProperty("mqtt.fanout", "").trim();
+        if (names.isEmpty()) {
+            return;
+        }
+        String outboxDir = config.getProperty("outbox.dir", Outbox.DEFAULT_DIR).trim();
+        for (String name : names.split(",")) {
+            name = name.trim();
+            String prefix = "mqtt.fanout." + name + ".";
+            String broker = config.getProperty(prefix + "broker", "").trim();
+            if (broker.isEmpty()) {
+                logManager.warn("No " + prefix + "broker configured, broker " + name + " skipped");
+                continue;
+            }
+            BrokerLink link = new BrokerLink(name, broker, config.getProperty(prefix + "username"),
+                    config.getProperty(prefix + "password"),
+                    intProperty(prefix + "queueCapacity", PublishPipeline.DEFAULT_CAPACITY));
+            link.setPublishMode(PublishMode.valueOf(config.getProperty(prefix + "publishMode",
+                    config.getProperty("mqtt.publishMode", "ASYNC")).trim()));
+            link.setMaxInflight(intProperty(prefix + "maxInflight",
+                    intProperty("mqtt.maxInflight", MqttService.DEFAULT_MAX_INFLIGHT)));
+            link.setOverflowPolicy(OverflowPolicy.valueOf(
+                    config.getProperty("pipeline.overflowPolicy", "DROP_OLDEST").trim()));
+            link.setReplayRatePerSecond(bridge.getReplayRatePerSecond());
+            link.openOutbox(Paths.get(outboxDir + "-" + name));
+            bridge.addBroker(link);
+            link.connect();
+            logManager.info("Fan-out broker added: " + name + " (" + broker + ")");
+        }
+    }
+
+    private void connectBroker() throws InterruptedException {
+        String broker = config.getProperty("mqtt.broker", "").trim();
+        if (broker.isEmpty()) {
+            logManager.warn("No mqtt.broker configured, readings are only kept in the outbox");
+            return;
+        }
+        while (running) {
+            try {
+                bridge.getMqttService().connect(broker, config.getProperty("mqtt.username"),
+                        config.getProperty("mqtt.password"));
+                logManager.info("Connected to MQTT broker: " + bridge.getMqttService().getCurrentBroker());
+                return;
+            } catch (Exception e) {
+                logManager.warn("MQTT connection failed, retrying in " + CONNECT_RETRY_MS / 1000 + " s: "
+                        + e.getMessage());
+                Thread.sleep(CONNECT_RETRY_MS);
+            }
+        }
+    }
+
+    private String portProperty(String portName, String key, String defaultValue) {
+        String value = config.getProperty("port." + portName + "." + key, config.getProperty("serial." + key));
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    private int intProperty(String key, int defaultValue) {
+        String value = config.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+}
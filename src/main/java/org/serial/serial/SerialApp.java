@@ -3,14 +3,19 @@ package org.serial.serial;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.serial.serial.metrics.BridgeMetrics;
+import org.serial.serial.metrics.MetricsServer;
 import org.serial.serial.ui.MainView;
 import org.serial.serial.util.LogManager;
+import org.serial.serial.util.StartupReport;
 
 public class SerialApp extends Application {
+    private MetricsServer metricsServer;
 
     @Override
     public void start(Stage primaryStage) {
         LogManager.getInstance().info("Application starting...");
+        startMetrics();
 
         MainView mainView = new MainView();
         Scene scene = new Scene(mainView.getRoot(), 700, 600);
@@ -20,10 +25,26 @@ public class SerialApp extends Application {
         primaryStage.setScene(scene);
         primaryStage.setOnCloseRequest(e -> {
             mainView.shutdown();
+            metricsServer.stop();
             LogManager.getInstance().info("Application stopped");
+            // Drains the async log writer before the JVM exits
+            LogManager.getInstance().shutdown();
         });
 
         primaryStage.show();
+        LogManager.getInstance().info("Application started: " + StartupReport.describe());
+    }
+
+    private void startMetrics() {
+        BridgeMetrics.getInstance().registerMBean();
+        metricsServer = new MetricsServer(MetricsServer.DEFAULT_PORT);
+        try {
+            metricsServer.start();
+            LogManager.getInstance().info("Metrics available at http://127.0.0.1:" + metricsServer.getPort()
+                    + "/metrics");
+        } catch (Exception e) {
+            LogManager.getInstance().warn("Metrics endpoint not started: " + e.getMessage());
+        }
     }
 
     public static void main(String[] args) {
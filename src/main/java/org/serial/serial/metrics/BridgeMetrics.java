@@ -0,0 +1,279 @@
+package org.serial.serial.metrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Process-wide counters, gauges and latency histograms for the serial -> MQTT path.
+// Exposed over JMX (org.serial.serial:type=BridgeMetrics) and in Prometheus text format.
+public class BridgeMetrics implements BridgeMetricsMXBean {
+    private static final BridgeMetrics instance = new BridgeMetrics();
+    private static final String OBJECT_NAME = "org.serial.serial:type=BridgeMetrics";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public static final String QUEUE_DEPTH = "bridge_publish_queue_depth";
+    public static final String INFLIGHT = "bridge_publish_inflight";
+    public static final String OUTBOX_PENDING = "bridge_outbox_pending";
+    public static final String PUBLISH_LAG = "bridge_publish_lag_ms";
+    // Per additional broker, registered as name{broker="..."}
+    public static final String BROKER_UP = "bridge_broker_up";
+    public static final String BROKER_BACKLOG = "bridge_broker_backlog";
+    public static final String BROKER_LAG = "bridge_broker_lag_ms";
+
+    private final LongAdder serialBytes = new LongAdder();
+    private final LongAdder serialFrames = new LongAdder();
+    private final LongAdder serialReadErrors = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    private final LatencyHistogram pubackLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+    private final LatencyHistogram failoverTime = new LatencyHistogram();
+
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+
+    private BridgeMetrics() {
+    }
+
+    public static BridgeMetrics getInstance() {
+        return instance;
+    }
+
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // A later registration under the same name replaces the earlier one
+    public synchronized void registerGauge(String name, String help, LongSupplier supplier) {
+        gauges.put(name, new Gauge(help, supplier));
+    }
+
+    private synchronized long gaugeValue(String name) {
+        Gauge gauge = gauges.get(name);
+        return gauge != null ? gauge.supplier.getAsLong() : 0;
+    }
+
+    public void recordSerialRead(int bytes) {
+        serialBytes.add(bytes);
+    }
+
+    public void recordSerialFrame() {
+        serialFrames.increment();
+    }
+
+    public void recordSerialReadError() {
+        serialReadErrors.increment();
+    }
+
+    public void recordParseFailure() {
+        parseFailures.increment();
+    }
+
+    // One PUBACK: latency of the publish itself and, when known, since the frame arrived
+    public void recordPublished(long pubackNanos, long arrivalNanos) {
+        published.increment();
+        pubackLatency.recordNanos(pubackNanos);
+        if (arrivalNanos != 0) {
+            endToEndLatency.recordNanos(System.nanoTime() - arrivalNanos);
+        }
+    }
+
+    public void recordPublishFailure() {
+        publishFailures.increment();
+    }
+
+    // Time from a lost broker connection to the next one, re-sends included
+    public void recordFailover(long nanos) {
+        failovers.increment();
+        failoverTime.recordNanos(nanos);
+    }
+
+    public LatencyHistogram getFailoverTime() {
+        return failoverTime;
+    }
+
+    public LatencyHistogram getPubackLatency() {
+        return pubackLatency;
+    }
+
+    public LatencyHistogram getEndToEndLatency() {
+        return endToEndLatency;
+    }
+
+    @Override
+    public long getSerialBytesRead() {
+        return serialBytes.sum();
+    }
+
+    @Override
+    public long getSerialFramesRead() {
+        return serialFrames.sum();
+    }
+
+    @Override
+    public long getSerialReadErrors() {
+        return serialReadErrors.sum();
+    }
+
+    @Override
+    public long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    @Override
+    public long getPublishedMessages() {
+        return published.sum();
+    }
+
+    @Override
+    public long getPublishFailures() {
+        return publishFailures.sum();
+    }
+
+    @Override
+    public long getMqttFailovers() {
+        return failovers.sum();
+    }
+
+    @Override
+    public double getMqttFailoverMaxMillis() {
+        return failoverTime.getMaxMillis();
+    }
+
+    @Override
+    public long getPublishQueueDepth() {
+        return gaugeValue(QUEUE_DEPTH);
+    }
+
+    @Override
+    public long getPublishInflight() {
+        return gaugeValue(INFLIGHT);
+    }
+
+    @Override
+    public long getOutboxPending() {
+        return gaugeValue(OUTBOX_PENDING);
+    }
+
+    @Override
+    public double getPubackLatencyP50Millis() {
+        return pubackLatency.getQuantileMillis(0.5);
+    }
+
+    @Override
+    public double getPubackLatencyP99Millis() {
+        return pubackLatency.getQuantileMillis(0.99);
+    }
+
+    @Override
+    public double getEndToEndLatencyP50Millis() {
+        return endToEndLatency.getQuantileMillis(0.5);
+    }
+
+    @Override
+    public double getEndToEndLatencyP99Millis() {
+        return endToEndLatency.getQuantileMillis(0.99);
+    }
+
+    @Override
+    public double getEndToEndLatencyP999Millis() {
+        return endToEndLatency.getQuantileMillis(0.999);
+    }
+
+    @Override
+    public double getEndToEndLatencyMaxMillis() {
+        return endToEndLatency.getMaxMillis();
+    }
+
+    @Override
+    public void resetLatencies() {
+        pubackLatency.reset();
+        endToEndLatency.reset();
+        failoverTime.reset();
+    }
+
+    private static String baseName(String series) {
+        int labels = series.indexOf('{');
+        return labels >= 0 ? series.substring(0, labels) : series;
+    }
+
+    // Prometheus text exposition format 0.0.4
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "bridge_serial_bytes_total", "Bytes read from serial ports", getSerialBytesRead());
+        counter(out, "bridge_serial_frames_total", "Frames read from serial ports", getSerialFramesRead());
+        counter(out, "bridge_serial_read_errors_total", "Serial read errors", getSerialReadErrors());
+        counter(out, "bridge_parse_failures_total", "Frames that could not be parsed as a weight", getParseFailures());
+        counter(out, "bridge_published_total", "Messages acknowledged by the broker", getPublishedMessages());
+        counter(out, "bridge_publish_failures_total", "Messages that failed to publish", getPublishFailures());
+
+        synchronized (this) {
+            // Series of one metric name (name{label="..."}) must be listed together, under
+            // a single HELP and TYPE line
+            Set<String> written = new HashSet<>();
+            for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+                String name = baseName(entry.getKey());
+                if (!written.add(name)) {
+                    continue;
+                }
+                out.append("# HELP ").append(name).append(' ').append(entry.getValue().help).append('\n');
+                out.append("# TYPE ").append(name).append(" gauge\n");
+                for (Map.Entry<String, Gauge> series : gauges.entrySet()) {
+                    if (baseName(series.getKey()).equals(name)) {
+                        out.append(series.getKey()).append(' ').append(series.getValue().supplier.getAsLong())
+                                .append('\n');
+                    }
+                }
+            }
+        }
+
+        summary(out, "bridge_puback_latency_seconds", "Publish to PUBACK latency", pubackLatency);
+        summary(out, "bridge_end_to_end_latency_seconds", "Serial frame arrival to PUBACK latency", endToEndLatency);
+        summary(out, "bridge_mqtt_failover_seconds", "Lost broker connection to reconnected, re-sends included",
+                failoverTime);
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (double quantile : QUANTILES) {
+            out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getQuantileMillis(quantile) / 1000.0).append('\n');
+        }
+        out.append(name).append("_sum ").append(histogram.getSumSeconds()).append('\n');
+        out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+
+    private static final class Gauge {
+        private final String help;
+        private final LongSupplier supplier;
+
+        private Gauge(String help, LongSupplier supplier) {
+            this.help = help;
+            this.supplier = supplier;
+        }
+    }
+}
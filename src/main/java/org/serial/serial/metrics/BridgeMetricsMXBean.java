@@ -0,0 +1,39 @@
+package org.serial.serial.metrics;
+
+public interface BridgeMetricsMXBean {
+    long getSerialBytesRead();
+
+    long getSerialFramesRead();
+
+    long getSerialReadErrors();
+
+    long getParseFailures();
+
+    long getPublishedMessages();
+
+    long getPublishFailures();
+
+    long getMqttFailovers();
+
+    double getMqttFailoverMaxMillis();
+
+    long getPublishQueueDepth();
+
+    long getPublishInflight();
+
+    long getOutboxPending();
+
+    double getPubackLatencyP50Millis();
+
+    double getPubackLatencyP99Millis();
+
+    double getEndToEndLatencyP50Millis();
+
+    double getEndToEndLatencyP99Millis();
+
+    double getEndToEndLatencyP999Millis();
+
+    double getEndToEndLatencyMaxMillis();
+
+    void resetLatencies();
+}
@@ -0,0 +1,10 @@
+package org.serial.serial.model;
+
+// The ordinal is the stability code of CBOR payloads: append new values, never reorder
+public enum Stability {
+    STABLE,
+    MOTION,
+    OVERLOAD,
+    // The indicator does not report stability
+    UNKNOWN
+}
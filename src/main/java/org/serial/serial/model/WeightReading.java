@@ -0,0 +1,140 @@
+package org.serial.serial.model;
+
+// One parsed indicator frame. The weight is fixed-point: value * 10^-decimals,
+// e.g. value=12345, decimals=3 is 12.345. Readings that could not be parsed
+// keep only the raw text and report isValid() == false. arrivalNanos is the
+// System.nanoTime() at which the frame arrived, for latency measurement only.
+public final class WeightReading {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    public static final int MAX_DECIMALS = POWERS_OF_TEN.length - 1;
+
+    private final long timestampMillis;
+    private final long arrivalNanos;
+    private final long value;
+    private final int decimals;
+    private final WeightUnit unit;
+    private final WeightType type;
+    private final Stability stability;
+    private final boolean valid;
+    private final String raw;
+
+    public WeightReading(long timestampMillis, long arrivalNanos, long value, int decimals, WeightUnit unit,
+                         WeightType type, Stability stability, String raw) {
+        this(timestampMillis, arrivalNanos, value, decimals, unit, type, stability, true, raw);
+    }
+
+    private WeightReading(long timestampMillis, long arrivalNanos, long value, int decimals, WeightUnit unit,
+                          WeightType type, Stability stability, boolean valid, String raw) {
+        this.timestampMillis = timestampMillis;
+        this.arrivalNanos = arrivalNanos;
+        this.value = value;
+        this.decimals = decimals;
+        this.unit = unit;
+        this.type = type;
+        this.stability = stability;
+        this.valid = valid;
+        this.raw = raw;
+    }
+
+    public static WeightReading invalid(long timestampMillis, long arrivalNanos, String raw) {
+        return new WeightReading(timestampMillis, arrivalNanos, 0, 0, WeightUnit.UNKNOWN, WeightType.UNKNOWN,
+                Stability.UNKNOWN, false, raw);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getArrivalNanos() {
+        return arrivalNanos;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public int getDecimals() {
+        return decimals;
+    }
+
+    // Value expressed with the given number of decimals (truncated when reducing precision)
+    public long getScaledValue(int targetDecimals) {
+        if (targetDecimals == decimals) {
+            return value;
+        }
+        if (targetDecimals > decimals) {
+            return value * POWERS_OF_TEN[targetDecimals - decimals];
+        }
+        return value / POWERS_OF_TEN[decimals - targetDecimals];
+    }
+
+    public double toDouble() {
+        return value / (double) POWERS_OF_TEN[decimals];
+    }
+
+    public WeightUnit getUnit() {
+        return unit;
+    }
+
+    public WeightType getType() {
+        return type;
+    }
+
+    public Stability getStability() {
+        return stability;
+    }
+
+    public boolean isStable() {
+        return stability == Stability.STABLE;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    // Appends the value as a plain decimal number, e.g. -12.050
+    public StringBuilder appendValue(StringBuilder target) {
+        long magnitude = Math.abs(value);
+        if (value < 0) {
+            target.append('-');
+        }
+        if (decimals == 0) {
+            return target.append(magnitude);
+        }
+        long divisor = POWERS_OF_TEN[decimals];
+        target.append(magnitude / divisor).append('.');
+        long fraction = magnitude % divisor;
+        for (long digit = divisor / 10; digit > fraction && digit > 1; digit /= 10) {
+            target.append('0');
+        }
+        return target.append(fraction);
+    }
+
+    public String formatValue() {
+        return appendValue(new StringBuilder(16)).toString();
+    }
+
+    @Override
+    public String toString() {
+        if (!valid) {
+            return raw;
+        }
+        StringBuilder text = appendValue(new StringBuilder(32));
+        if (unit != WeightUnit.UNKNOWN) {
+            text.append(' ').append(unit.getSymbol());
+        }
+        if (type != WeightType.UNKNOWN) {
+            text.append(' ').append(type.name());
+        }
+        if (stability != Stability.UNKNOWN) {
+            text.append(' ').append(stability.name());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package org.serial.serial.model;
+
+// The ordinal is the type code of CBOR payloads: append new values, never reorder
+public enum WeightType {
+    GROSS,
+    NET,
+    TARE,
+    UNKNOWN
+}
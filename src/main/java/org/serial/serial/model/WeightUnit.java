@@ -0,0 +1,21 @@
+package org.serial.serial.model;
+
+// The ordinal is the unit code of series payloads: append new values, never reorder
+public enum WeightUnit {
+    KG("kg"),
+    G("g"),
+    T("t"),
+    LB("lb"),
+    OZ("oz"),
+    UNKNOWN("");
+
+    private final String symbol;
+
+    WeightUnit(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
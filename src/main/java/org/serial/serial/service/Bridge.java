@@ -0,0 +1,327 @@
+package org.serial.serial.service;
+
+import org.serial.serial.metrics.BridgeMetrics;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.store.Outbox;
+import org.serial.serial.store.ReadingStore;
+import org.serial.serial.util.LogManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The serial -> MQTT pipeline without any UI: readings from every port go through the
+// filter and batcher into the publish pipeline, with the outbox as fallback while the
+// broker is unreachable, into the history store and into the window aggregator, whose
+// statistics go to <port topic>/stats. Every message also goes to each additional
+// broker's BrokerLink. Shared by MainView and the headless launcher.
+public class Bridge {
+    // Told about every reading (forwarded or not), on the port's reader thread
+    public interface ReadingListener {
+        void onReading(PortChannel channel, WeightReading reading, String timestamp);
+    }
+
+    private final LogManager logManager = LogManager.getInstance();
+    private final PortManager portManager = new PortManager();
+    private final MqttService mqttService = new MqttService();
+    private final PublishPipeline publishPipeline = new PublishPipeline(mqttService);
+    private final List<BrokerLink> brokerLinks = new CopyOnWriteArrayList<>();
+    private final ReadingBatcher readingBatcher = new ReadingBatcher(this::publish);
+    private final ReadingFilter readingFilter = new ReadingFilter();
+    private final ReadingAggregator readingAggregator = new ReadingAggregator(this::publishWindow);
+    private Outbox outbox;
+    private OutboxReplayer outboxReplayer;
+    private volatile int replayRatePerSecond = OutboxReplayer.DEFAULT_REPLAY_RATE;
+    private volatile ReadingStore readingStore;
+    // Only the first of a run of failed history writes is logged
+    private volatile boolean historyFailing = false;
+    private volatile ReadingListener readingListener;
+    private volatile PayloadSchema payloadSchema = PayloadSchema.DEFAULT;
+    // Every port has its own reader thread, so each gets its own encoder and buffer
+    private final ThreadLocal<PayloadEncoder> payloadEncoder = ThreadLocal.withInitial(PayloadEncoder::new);
+    // Port topic -> topic with the format suffix, so the suffix is not concatenated per reading
+    private final Map<String, String> publishTopics = new ConcurrentHashMap<>();
+    // Port name -> topic of its window aggregates
+    private final Map<String, String> aggregateTopics = new ConcurrentHashMap<>();
+    private volatile boolean running = false;
+
+    public Bridge() {
+        portManager.setReadingHandler(this::handleReading);
+        BridgeMetrics metrics = BridgeMetrics.getInstance();
+        metrics.registerGauge(BridgeMetrics.QUEUE_DEPTH, "Messages waiting in the publish queue",
+                publishPipeline::getQueueDepth);
+        metrics.registerGauge(BridgeMetrics.INFLIGHT, "Messages published and waiting for PUBACK",
+                mqttService::getInflightCount);
+        metrics.registerGauge(BridgeMetrics.PUBLISH_LAG, "Age of the oldest queued message in milliseconds",
+                publishPipeline::getLagMillis);
+    }
+
+    // Add while stopped; the link connects on its own
+    public void addBroker(BrokerLink link) {
+        brokerLinks.add(link);
+        String label = "{broker=\"" + link.getName() + "\"}";
+        BridgeMetrics metrics = BridgeMetrics.getInstance();
+        metrics.registerGauge(BridgeMetrics.BROKER_UP + label, "1 while the additional broker is connected",
+                () -> link.getHealth() == BrokerLink.Health.UP ? 1 : 0);
+        metrics.registerGauge(BridgeMetrics.BROKER_BACKLOG + label,
+                "Messages not yet acknowledged by the additional broker", link::getBacklog);
+        metrics.registerGauge(BridgeMetrics.BROKER_LAG + label,
+                "Age of the oldest message queued for the additional broker in milliseconds", link::getLagMillis);
+    }
+
+    public List<BrokerLink> getBrokerLinks() {
+        return brokerLinks;
+    }
+
+    public void setReadingListener(ReadingListener readingListener) {
+        this.readingListener = readingListener;
+    }
+
+    // Change only while stopped: open batches must not mix encodings
+    public void setPayloadSchema(PayloadSchema payloadSchema) {
+        this.payloadSchema = payloadSchema;
+        readingBatcher.setPayloadFormat(payloadSchema.getFormat());
+        publishTopics.clear();
+        aggregateTopics.clear();
+    }
+
+    public PayloadSchema getPayloadSchema() {
+        return payloadSchema;
+    }
+
+    // Failing to open the outbox is not fatal: readings taken while the broker is
+    // unreachable are then lost
+    public void openOutbox(Path directory) {
+        try {
+            outbox = new Outbox(directory);
+            publishPipeline.setOutbox(outbox);
+            BridgeMetrics.getInstance().registerGauge(BridgeMetrics.OUTBOX_PENDING,
+                    "Messages stored while the broker was unreachable", outbox::getPendingCount);
+            outboxReplayer = new OutboxReplayer(outbox, mqttService);
+            outboxReplayer.setReplayRatePerSecond(replayRatePerSecond);
+            outboxReplayer.start();
+
+            if (!outbox.isEmpty()) {
+                logManager.info("Outbox holds " + outbox.getPendingCount() + " messages waiting for the broker");
+            }
+        } catch (Exception ex) {
+            logManager.error("Failed to open outbox, offline readings will not be kept: " + ex.getMessage());
+        }
+    }
+
+    // Messages per second replayed from the outbox once the broker is back; takes effect at once
+    public void setReplayRatePerSecond(int replayRatePerSecond) {
+        this.replayRatePerSecond = replayRatePerSecond;
+        OutboxReplayer replayer = outboxReplayer;
+        if (replayer != null) {
+            replayer.setReplayRatePerSecond(replayRatePerSecond);
+        }
+    }
+
+    public int getReplayRatePerSecond() {
+        return replayRatePerSecond;
+    }
+
+    // Every reading (filtered or not) is kept; without the store there is no history
+    public void openHistory(Path directory) {
+        try {
+            readingStore = new ReadingStore(directory);
+        } catch (Exception ex) {
+            logManager.error("Failed to open history store, readings will not be kept: " + ex.getMessage());
+        }
+    }
+
+    // Returns the number of ports that were opened; nothing is left running when it is 0
+    public synchronized int start() {
+        if (running) {
+            return portManager.getRunningCount();
+        }
+        publishPipeline.start();
+        for (BrokerLink link : brokerLinks) {
+            link.start();
+        }
+        readingBatcher.start();
+        readingFilter.reset();
+        readingAggregator.reset();
+        aggregateTopics.clear();
+
+        int started = portManager.startAll();
+        if (started == 0) {
+            readingBatcher.stop();
+            publishPipeline.stop();
+            for (BrokerLink link : brokerLinks) {
+                link.stop();
+            }
+            return 0;
+        }
+        running = true;
+        return started;
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        portManager.stopAll();
+        // Open windows and batches go into the pipeline before it drains
+        readingAggregator.flush();
+        readingBatcher.stop();
+        publishPipeline.stop();
+        for (BrokerLink link : brokerLinks) {
+            link.stop();
+        }
+        running = false;
+    }
+
+    public void logStatistics() {
+        for (PortChannel channel : portManager.getChannels()) {
+            logManager.info("Serial statistics " + channel.getPortName() + ": "
+                    + channel.getSerialService().getStatsSummary());
+        }
+        logManager.info("Bridge statistics: " + portManager.getStatsSummary());
+        logManager.info("Filter statistics: " + readingFilter.getStatsSummary());
+        logManager.info("Aggregate statistics: " + readingAggregator.getStatsSummary());
+        logManager.info("Batch statistics: " + readingBatcher.getStatsSummary());
+        logManager.info("Publish statistics: " + publishPipeline.getStatsSummary());
+        logManager.info("MQTT statistics: " + mqttService.getStatsSummary());
+        for (BrokerLink link : brokerLinks) {
+            logManager.info("Broker " + link.getName() + " statistics: " + link.getStatsSummary());
+        }
+    }
+
+    public void shutdown() {
+        stop();
+        if (outboxReplayer != null) {
+            outboxReplayer.stop();
+        }
+        // Also stops a failover in progress
+        mqttService.disconnect();
+        for (BrokerLink link : brokerLinks) {
+            link.shutdown();
+        }
+        if (outbox != null) {
+            outbox.close();
+        }
+        if (readingStore != null) {
+            readingStore.close();
+        }
+    }
+
+    // Called on the port's reader thread
+    private void handleReading(PortChannel channel, WeightReading reading) {
+        PayloadEncoder encoder = payloadEncoder.get();
+        storeReading(channel, reading);
+        if (readingAggregator.isEnabled()) {
+            String port = channel.getPortName();
+            if (!aggregateTopics.containsKey(port)) {
+                aggregateTopics.put(port, channel.getConfig().getTopic() + ReadingAggregator.TOPIC_SUFFIX
+                        + aggregateFormat(payloadSchema.getFormat()).getTopicSuffix());
+            }
+            readingAggregator.add(port, reading);
+        }
+
+        // Publish to MQTT (stored in the outbox while the broker is unreachable)
+        if (readingFilter.accept(channel.getPortName(), reading)) {
+            PayloadSchema schema = payloadSchema;
+            String topic = publishTopic(channel.getConfig().getTopic(), schema.getFormat());
+            if (schema.getFormat() == PayloadFormat.SERIES) {
+                readingBatcher.submit(topic, reading, reading.getArrivalNanos());
+            } else {
+                byte[] payload = encoder.encodeToArray(schema, channel.getPortName(), reading);
+                readingBatcher.submit(topic, payload, reading.getArrivalNanos());
+            }
+        }
+
+        ReadingListener listener = readingListener;
+        if (listener != null) {
+            listener.onReading(channel, reading, encoder.formatTimestamp(reading.getTimestampMillis()));
+        }
+    }
+
+    // Reader thread of the port, or the thread stopping the bridge
+    private void publishWindow(String port, WindowStats stats) {
+        String topic = aggregateTopics.get(port);
+        if (topic != null) {
+            byte[] payload = payloadEncoder.get().encodeWindow(aggregateFormat(payloadSchema.getFormat()), port, stats);
+            publish(topic, payload, 0);
+        }
+    }
+
+    // Primary pipeline first; the additional brokers' queues never block, so a slow link
+    // cannot hold back the primary broker or the readers
+    private boolean publish(String topic, byte[] payload, long arrivalNanos) {
+        boolean accepted = publishPipeline.submit(topic, payload, arrivalNanos);
+        for (BrokerLink link : brokerLinks) {
+            link.submit(topic, payload, arrivalNanos);
+        }
+        return accepted;
+    }
+
+    // Windows are single messages: SERIES only applies to batches of readings
+    private static PayloadFormat aggregateFormat(PayloadFormat format) {
+        return format == PayloadFormat.SERIES ? PayloadFormat.JSON : format;
+    }
+
+    private void storeReading(PortChannel channel, WeightReading reading) {
+        ReadingStore store = readingStore;
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(channel.getPortName(), reading);
+            historyFailing = false;
+        } catch (Exception e) {
+            if (!historyFailing) {
+                historyFailing = true;
+                logManager.error("Failed to store reading in history: " + e.getMessage());
+            }
+        }
+    }
+
+    private String publishTopic(String topic, PayloadFormat format) {
+        if (format.getTopicSuffix().isEmpty()) {
+            return topic;
+        }
+        String publishTopic = publishTopics.get(topic);
+        if (publishTopic == null) {
+            publishTopic = topic + format.getTopicSuffix();
+            publishTopics.put(topic, publishTopic);
+        }
+        return publishTopic;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public PortManager getPortManager() {
+        return portManager;
+    }
+
+    public MqttService getMqttService() {
+        return mqttService;
+    }
+
+    public PublishPipeline getPublishPipeline() {
+        return publishPipeline;
+    }
+
+    public ReadingBatcher getReadingBatcher() {
+        return readingBatcher;
+    }
+
+    public ReadingFilter getReadingFilter() {
+        return readingFilter;
+    }
+
+    public ReadingAggregator getReadingAggregator() {
+        return readingAggregator;
+    }
+
+    // Null when the history store could not be opened
+    public ReadingStore getReadingStore() {
+        return readingStore;
+    }
+}
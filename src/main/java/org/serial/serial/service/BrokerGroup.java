@@ -0,0 +1,165 @@
+package org.serial.serial.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// The brokers one MqttService may use, from a comma-separated list of server URIs.
+// probe() measures how long a TCP connect to each of them takes; ranked() orders them
+// for the next connection attempt: reachable brokers by that latency, then unreachable
+// ones in configured order, and the broker that was just lost last. probeMember()
+// health-checks the connected broker the same way.
+public class BrokerGroup {
+    public static final int PROBE_TIMEOUT_MS = 500;
+
+    private final List<Member> members = new ArrayList<>();
+
+    public BrokerGroup(String brokers) throws Exception {
+        for (String uri : brokers.split(",")) {
+            uri = uri.trim();
+            if (!uri.isEmpty()) {
+                members.add(new Member(uri));
+            }
+        }
+        if (members.isEmpty()) {
+            throw new Exception("No broker URL given");
+        }
+    }
+
+    // Probes every member but the one given (the connected broker, null for all)
+    public void probe(String except) {
+        for (Member member : members) {
+            if (!member.uri.equals(except)) {
+                member.probe();
+            }
+        }
+    }
+
+    // Returns whether the broker took the connection; false for an unknown one
+    public boolean probeMember(String uri) {
+        Member member = find(uri);
+        if (member == null) {
+            return false;
+        }
+        member.probe();
+        return member.reachable;
+    }
+
+    public boolean isReachable(String uri) {
+        Member member = find(uri);
+        return member != null && member.reachable;
+    }
+
+    // After a failed MQTT connect; the next probe may bring it back
+    public void markDown(String uri) {
+        Member member = find(uri);
+        if (member != null) {
+            member.reachable = false;
+        }
+    }
+
+    public List<String> ranked(String last) {
+        List<Member> order = new ArrayList<>(members);
+        order.sort(Comparator.comparing((Member member) -> !member.reachable)
+                .thenComparingLong(member -> member.reachable ? member.latencyNanos : 0));
+        List<String> uris = new ArrayList<>(order.size());
+        for (Member member : order) {
+            if (!member.uri.equals(last)) {
+                uris.add(member.uri);
+            }
+        }
+        if (find(last) != null) {
+            uris.add(last);
+        }
+        return uris;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    // e.g. "tcp://a:1883 1.2 ms, tcp://b:1883 down"
+    public String describe() {
+        StringBuilder out = new StringBuilder();
+        for (Member member : members) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(member.uri).append(' ');
+            if (!member.reachable) {
+                out.append("down");
+            } else if (member.latencyNanos == Long.MAX_VALUE) {
+                out.append("not probed");
+            } else {
+                out.append(String.format("%.1f ms", member.latencyNanos / 1_000_000.0));
+            }
+        }
+        return out.toString();
+    }
+
+    private Member find(String uri) {
+        for (Member member : members) {
+            if (member.uri.equals(uri)) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private static final class Member {
+        private final String uri;
+        private final String host;
+        private final int port;
+        private volatile boolean reachable = true;
+        private volatile long latencyNanos = Long.MAX_VALUE;
+
+        private Member(String uri) throws Exception {
+            URI parsed;
+            try {
+                parsed = new URI(uri);
+            } catch (Exception e) {
+                throw new Exception("Invalid broker URL: " + uri);
+            }
+            String scheme = parsed.getScheme() != null ? parsed.getScheme().toLowerCase() : "";
+            this.uri = uri;
+            this.host = parsed.getHost();
+            this.port = parsed.getPort() >= 0 ? parsed.getPort() : defaultPort(scheme);
+            if (!scheme.equals("local") && host == null) {
+                throw new Exception("Invalid broker URL: " + uri);
+            }
+        }
+
+        private static int defaultPort(String scheme) {
+            switch (scheme) {
+                case "ssl":
+                    return 8883;
+                case "ws":
+                    return 80;
+                case "wss":
+                    return 443;
+                default:
+                    return 1883;
+            }
+        }
+
+        private void probe() {
+            if (host == null) {
+                // local:// has nothing to probe
+                latencyNanos = 0;
+                return;
+            }
+            long start = System.nanoTime();
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), PROBE_TIMEOUT_MS);
+                latencyNanos = System.nanoTime() - start;
+                reachable = true;
+            } catch (IOException e) {
+                reachable = false;
+            }
+        }
+    }
+}
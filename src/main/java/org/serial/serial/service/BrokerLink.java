@@ -0,0 +1,202 @@
+package org.serial.serial.service;
+
+import org.serial.serial.store.Outbox;
+import org.serial.serial.util.LogManager;
+
+import java.nio.file.Path;
+
+// An additional broker fed with the same messages as the primary one, through its own
+// client, in-flight window, bounded queue, outbox and replayer, so a slow or unreachable
+// link only ever backs up itself. The queue never blocks the readers: BLOCK falls back
+// to DROP_OLDEST, and whatever cannot be published goes to the link's outbox. The first
+// connect is retried in the background; after that MqttService fails over and reconnects.
+public class BrokerLink implements MessageSink {
+    public enum Health { CONNECTING, UP, DOWN }
+
+    private static final long INITIAL_RETRY_MS = 1000;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private final String name;
+    private final String broker;
+    private final String username;
+    private final String password;
+    private final MqttService mqttService = new MqttService();
+    private final PublishPipeline publishPipeline;
+    private final LogManager logManager = LogManager.getInstance();
+    private Outbox outbox;
+    private OutboxReplayer outboxReplayer;
+    private int replayRatePerSecond = OutboxReplayer.DEFAULT_REPLAY_RATE;
+    private volatile boolean connectedOnce = false;
+    private volatile boolean connecting = false;
+    private volatile String lastError;
+    // When the broker stopped receiving messages live; 0 while it keeps up
+    private volatile long behindSinceNanos;
+    private Thread connectThread;
+
+    public BrokerLink(String name, String broker, String username, String password, int queueCapacity) {
+        this.name = name;
+        this.broker = broker;
+        this.username = username;
+        this.password = password;
+        this.publishPipeline = new PublishPipeline(mqttService, queueCapacity, 1, OverflowPolicy.DROP_OLDEST);
+        mqttService.setMetricsEnabled(false);
+    }
+
+    public void setMaxInflight(int maxInflight) {
+        mqttService.setMaxInflight(maxInflight);
+    }
+
+    public void setPublishMode(PublishMode publishMode) {
+        mqttService.setPublishMode(publishMode);
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        publishPipeline.setOverflowPolicy(overflowPolicy == OverflowPolicy.BLOCK
+                ? OverflowPolicy.DROP_OLDEST : overflowPolicy);
+    }
+
+    // Takes effect when the outbox is opened
+    public void setReplayRatePerSecond(int replayRatePerSecond) {
+        this.replayRatePerSecond = replayRatePerSecond;
+    }
+
+    // Failing to open the outbox is not fatal: messages this broker misses are then lost
+    public void openOutbox(Path directory) {
+        try {
+            outbox = new Outbox(directory);
+            publishPipeline.setOutbox(outbox);
+            outboxReplayer = new OutboxReplayer(outbox, mqttService);
+            outboxReplayer.setReplayRatePerSecond(replayRatePerSecond);
+            outboxReplayer.start();
+        } catch (Exception e) {
+            logManager.error("Failed to open outbox of broker " + name + ": " + e.getMessage());
+        }
+    }
+
+    // Returns at once; the connection is made on a background thread
+    public synchronized void connect() {
+        if (connecting || mqttService.isConnected()) {
+            return;
+        }
+        connecting = true;
+        connectThread = new Thread(this::connectLoop, "mqtt-connect-" + name);
+        connectThread.setDaemon(true);
+        connectThread.start();
+    }
+
+    private void connectLoop() {
+        long retryMs = INITIAL_RETRY_MS;
+        while (connecting) {
+            try {
+                mqttService.connect(broker, username, password);
+                connectedOnce = true;
+                lastError = null;
+                logManager.info("Connected to MQTT broker " + name + ": " + broker);
+                break;
+            } catch (Exception e) {
+                if (lastError == null) {
+                    logManager.warn("MQTT broker " + name + " unreachable, retrying in the background: "
+                            + e.getMessage());
+                }
+                lastError = e.getMessage();
+            }
+            try {
+                Thread.sleep(retryMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+        }
+        connecting = false;
+    }
+
+    public void start() {
+        publishPipeline.start();
+    }
+
+    // Drains the queue (into the outbox if the broker is down)
+    public void stop() {
+        publishPipeline.stop();
+    }
+
+    public synchronized void shutdown() {
+        stop();
+        connecting = false;
+        if (connectThread != null) {
+            connectThread.interrupt();
+        }
+        if (outboxReplayer != null) {
+            outboxReplayer.stop();
+        }
+        mqttService.disconnect();
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Override
+    public boolean submit(String topic, byte[] payload, long arrivalNanos) {
+        if (!mqttService.isConnected()) {
+            if (behindSinceNanos == 0) {
+                behindSinceNanos = System.nanoTime();
+            }
+        } else {
+            checkCaughtUp();
+        }
+        return publishPipeline.submit(topic, payload, arrivalNanos);
+    }
+
+    private void checkCaughtUp() {
+        Outbox target = outbox;
+        if (behindSinceNanos != 0 && mqttService.isConnected() && (target == null || target.isEmpty())) {
+            behindSinceNanos = 0;
+        }
+    }
+
+    public Health getHealth() {
+        if (mqttService.isConnected()) {
+            return Health.UP;
+        }
+        return connectedOnce || lastError != null ? Health.DOWN : Health.CONNECTING;
+    }
+
+    // Messages not yet acknowledged by this broker: queued, in flight and in the outbox
+    public long getBacklog() {
+        Outbox target = outbox;
+        return publishPipeline.getQueueDepth() + mqttService.getInflightCount()
+                + (target != null ? target.getPendingCount() : 0);
+    }
+
+    // Age of the oldest queued message, or while the outbox is replaying, how long ago
+    // the broker fell behind
+    public long getLagMillis() {
+        checkCaughtUp();
+        long lag = publishPipeline.getLagMillis();
+        long behindSince = behindSinceNanos;
+        if (behindSince != 0) {
+            lag = Math.max(lag, (System.nanoTime() - behindSince) / 1_000_000);
+        }
+        return lag;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBroker() {
+        return broker;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public PublishPipeline getPublishPipeline() {
+        return publishPipeline;
+    }
+
+    public String getStatsSummary() {
+        return String.format("%s, health=%s, backlog=%d, %s", broker, getHealth().name(), getBacklog(),
+                publishPipeline.getStatsSummary());
+    }
+}
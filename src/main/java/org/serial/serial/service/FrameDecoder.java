@@ -0,0 +1,151 @@
+package org.serial.serial.service;
+
+// Splits the raw serial byte stream into frames without allocating per byte or per frame.
+// Only printable ASCII is kept and surrounding spaces are trimmed; the frame is handed out
+// as a view on a reusable buffer that is only valid during the handler call.
+public class FrameDecoder {
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 256;
+
+    private static final byte CR_BYTE = '\r';
+    private static final byte LF_BYTE = '\n';
+    private static final byte STX_BYTE = 0x02;
+    private static final byte ETX_BYTE = 0x03;
+
+    public interface FrameHandler {
+        void onFrame(byte[] buffer, int offset, int length);
+    }
+
+    private final Framing framing;
+    private final int frameLength;
+    private final byte[] frame;
+    private int length;
+    private int rawCount;
+    private boolean inFrame;
+    private boolean lastWasCr;
+    private boolean discarding;
+    private long overflowCount;
+
+    public FrameDecoder(Framing framing) {
+        this(framing, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    // For FIXED_LENGTH, frameLength is the size of every frame; otherwise it is the
+    // longest frame accepted before the partial frame is discarded
+    public FrameDecoder(Framing framing, int frameLength) {
+        this.framing = framing;
+        this.frameLength = frameLength;
+        this.frame = new byte[frameLength];
+        this.inFrame = framing != Framing.STX_ETX;
+    }
+
+    public void decode(byte[] data, int offset, int count, FrameHandler handler) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            byte b = data[i];
+
+            switch (framing) {
+                case LINE:
+                    if (b == CR_BYTE || b == LF_BYTE) {
+                        emit(handler);
+                        continue;
+                    }
+                    break;
+                case CR:
+                    if (b == CR_BYTE) {
+                        emit(handler);
+                        continue;
+                    }
+                    break;
+                case LF:
+                    if (b == LF_BYTE) {
+                        emit(handler);
+                        continue;
+                    }
+                    break;
+                case CRLF:
+                    if (b == LF_BYTE && lastWasCr) {
+                        lastWasCr = false;
+                        emit(handler);
+                        continue;
+                    }
+                    lastWasCr = b == CR_BYTE;
+                    break;
+                case STX_ETX:
+                    if (b == STX_BYTE) {
+                        length = 0;
+                        discarding = false;
+                        inFrame = true;
+                        continue;
+                    }
+                    if (b == ETX_BYTE) {
+                        if (inFrame) {
+                            emit(handler);
+                        }
+                        inFrame = false;
+                        continue;
+                    }
+                    break;
+                case FIXED_LENGTH:
+                    append(b);
+                    if (++rawCount == frameLength) {
+                        emit(handler);
+                    }
+                    continue;
+            }
+
+            if (inFrame) {
+                append(b);
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (b < 32 || b > 126 || discarding) { // Printable ASCII characters only
+            return;
+        }
+        if (length == frame.length) {
+            // Runaway frame (missing delimiter or wrong framing): drop it up to the next delimiter
+            overflowCount++;
+            length = 0;
+            discarding = true;
+            return;
+        }
+        frame[length++] = b;
+    }
+
+    private void emit(FrameHandler handler) {
+        int start = 0;
+        int stop = length;
+        while (start < stop && frame[start] == ' ') {
+            start++;
+        }
+        while (stop > start && frame[stop - 1] == ' ') {
+            stop--;
+        }
+
+        boolean discarded = discarding;
+        length = 0;
+        rawCount = 0;
+        discarding = false;
+        if (stop > start && !discarded) {
+            handler.onFrame(frame, start, stop - start);
+        }
+    }
+
+    // Bytes of the frame currently being assembled
+    public int getPendingLength() {
+        return framing == Framing.FIXED_LENGTH ? rawCount : length;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    public void reset() {
+        length = 0;
+        rawCount = 0;
+        lastWasCr = false;
+        discarding = false;
+        inFrame = framing != Framing.STX_ETX;
+    }
+}
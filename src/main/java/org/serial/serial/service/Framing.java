@@ -0,0 +1,24 @@
+package org.serial.serial.service;
+
+public enum Framing {
+    // Either CR or LF ends a frame (the original behaviour)
+    LINE("CR or LF"),
+    CR("CR"),
+    LF("LF"),
+    CRLF("CR LF"),
+    // Frame starts at STX (0x02) and ends at ETX (0x03)
+    STX_ETX("STX / ETX"),
+    // Every N bytes form a frame
+    FIXED_LENGTH("Fixed Length");
+
+    private final String label;
+
+    Framing(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,72 @@
+package org.serial.serial.service;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A system serial port through jSerialComm
+public class JSerialCommTransport implements SerialTransport {
+    private static final int READ_TIMEOUT_MS = 100;
+
+    private final SerialPort serialPort;
+
+    public JSerialCommTransport(String portName) {
+        this.serialPort = SerialPort.getCommPort(portName);
+    }
+
+    static List<String> availablePorts() {
+        List<String> ports = new ArrayList<>();
+        for (SerialPort port : SerialPort.getCommPorts()) {
+            ports.add(port.getSystemPortName());
+        }
+        return ports;
+    }
+
+    @Override
+    public void open(int baudRate, int dataBits, int stopBits, int parity) throws Exception {
+        serialPort.setBaudRate(baudRate);
+        serialPort.setNumDataBits(dataBits);
+        serialPort.setNumStopBits(stopBits);
+        serialPort.setParity(parity);
+        // Semi-blocking: a read returns as soon as at least one byte is available
+        serialPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, READ_TIMEOUT_MS, 0);
+
+        if (!serialPort.openPort()) {
+            throw new Exception("Failed to open port: " + serialPort.getSystemPortName());
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        // -1 (port error) is reported as no data, as SerialService has always treated it
+        return Math.max(serialPort.readBytes(buffer, length, offset), 0);
+    }
+
+    @Override
+    public int available() {
+        return Math.max(serialPort.bytesAvailable(), 0);
+    }
+
+    @Override
+    public void write(byte[] data, int length) {
+        serialPort.writeBytes(data, length);
+    }
+
+    @Override
+    public void close() {
+        if (serialPort.isOpen()) {
+            serialPort.closePort();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return serialPort.isOpen();
+    }
+
+    @Override
+    public String getName() {
+        return serialPort.getSystemPortName();
+    }
+}
@@ -0,0 +1,8 @@
+package org.serial.serial.service;
+
+// Where encoded messages go: one publish pipeline, or every broker the bridge feeds.
+// arrivalNanos is when the (oldest) reading arrived on the serial port, 0 if unknown;
+// the payload array is handed over and must not be modified afterwards.
+public interface MessageSink {
+    boolean submit(String topic, byte[] payload, long arrivalNanos);
+}
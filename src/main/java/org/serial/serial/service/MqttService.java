@@ -3,24 +3,122 @@ package org.serial.serial.service;
 
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.serial.serial.metrics.BridgeMetrics;
+import org.serial.serial.metrics.LatencyHistogram;
+import org.serial.serial.util.LogManager;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+// QoS 1 publisher for one broker or a failover group ("tcp://a:1883,tcp://b:1883").
+// Instead of Paho's automatic reconnect, a supervisor thread reacts to a lost connection
+// at once: it connects to the best-ranked reachable broker of the group (see BrokerGroup)
+// and re-sends, in publish order, every message that was published but not acknowledged.
+// Every probeIntervalMs all brokers are probed, the connected one first; one that stops
+// taking connections is failed over from without waiting for the MQTT keepalive. Only
+// when no broker of the group is reachable are the pending messages failed back to their
+// publishers (and so into the outbox), and the supervisor keeps retrying with backoff.
 public class MqttService {
-    private MqttClient mqttClient;
-    private String currentBroker;
+    public static final int DEFAULT_MAX_INFLIGHT = 64;
+    public static final int DEFAULT_PROBE_INTERVAL_MS = 500;
+    private static final int CONNECT_TIMEOUT_S = 10;
+    private static final int FAILOVER_CONNECT_TIMEOUT_S = 2;
+    // Bounds how long a broker that takes connections but stopped answering goes unnoticed
+    private static final int KEEP_ALIVE_S = 2;
+    private static final long INITIAL_RETRY_MS = 500;
+    private static final long MAX_RETRY_MS = 30_000;
 
+    private volatile MqttAsyncClient mqttClient;
+    private volatile String currentBroker;
+    private volatile BrokerGroup brokerGroup;
+    private String username;
+    private String password;
+    private volatile PublishMode publishMode = PublishMode.SYNC;
+    private int maxInflight = DEFAULT_MAX_INFLIGHT;
+    private volatile int probeIntervalMs = DEFAULT_PROBE_INTERVAL_MS;
+    private Semaphore inflightWindow = new Semaphore(DEFAULT_MAX_INFLIGHT);
+    // In publish order, so a re-send keeps the order of each topic
+    private final Queue<Delivery> pendingDeliveries = new ConcurrentLinkedQueue<>();
+    private final BridgeMetrics metrics = BridgeMetrics.getInstance();
+    private final LogManager logManager = LogManager.getInstance();
+    // Off for additional brokers, so the process-wide latencies describe the primary one
+    private volatile boolean metricsEnabled = true;
+
+    private ScheduledExecutorService supervisor;
+    private volatile boolean closing = false;
+    private long retryMs = INITIAL_RETRY_MS;
+
+    private final LatencyHistogram failoverTimes = new LatencyHistogram();
+    private final AtomicLong failoverCount = new AtomicLong();
+    private final AtomicLong resentCount = new AtomicLong();
+
+    // broker is one server URI or a comma-separated failover group
     public void connect(String broker, String username, String password) throws Exception {
-        String clientId = "SerialMqttBridge_" + UUID.randomUUID().toString().substring(0, 8);
-        currentBroker = broker;
+        stopSupervisor();
+        BrokerGroup group = new BrokerGroup(broker);
+        this.username = username;
+        this.password = password;
+        closing = false;
+        inflightWindow = new Semaphore(maxInflight);
 
-        mqttClient = new MqttClient(broker, clientId, new MemoryPersistence());
+        brokerGroup = group;
+        // Two threads, so a probe waiting for an unreachable standby never holds up a failover
+        supervisor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "mqtt-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryMs = INITIAL_RETRY_MS;
+
+        if (group.size() > 1) {
+            group.probe(null);
+        }
+        Exception failure = null;
+        for (String uri : group.ranked(null)) {
+            try {
+                open(uri, CONNECT_TIMEOUT_S);
+                failure = null;
+                break;
+            } catch (Exception e) {
+                group.markDown(uri);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            stopSupervisor();
+            throw group.size() > 1 ? new Exception("No broker of the group reachable: " + failure.getMessage(), failure)
+                    : failure;
+        }
+        if (group.size() > 1) {
+            supervisor.scheduleWithFixedDelay(() -> checkBrokers(group), probeIntervalMs, probeIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Connects a new client to one broker and makes it the current one
+    private void open(String uri, int timeoutSeconds) throws Exception {
+        String clientId = "SerialMqttBridge_" + UUID.randomUUID().toString().substring(0, 8);
+        MqttAsyncClient client = new MqttAsyncClient(uri, clientId, new MemoryPersistence());
 
         MqttConnectOptions options = new MqttConnectOptions();
         options.setCleanSession(true);
-        options.setAutomaticReconnect(true);
-        options.setConnectionTimeout(10);
-        options.setKeepAliveInterval(60);
+        options.setAutomaticReconnect(false);
+        options.setConnectionTimeout(timeoutSeconds);
+        options.setKeepAliveInterval(KEEP_ALIVE_S);
+        options.setMaxInflight(maxInflight);
 
         if (username != null && !username.isEmpty()) {
             options.setUserName(username);
@@ -30,10 +128,10 @@ public class MqttService {
             options.setPassword(password.toCharArray());
         }
 
-        mqttClient.setCallback(new MqttCallback() {
+        client.setCallback(new MqttCallback() {
             @Override
             public void connectionLost(Throwable cause) {
-                System.err.println("MQTT Connection lost: " + cause.getMessage());
+                onConnectionLost(client, cause);
             }
 
             @Override
@@ -43,34 +141,299 @@ public class MqttService {
 
             @Override
             public void deliveryComplete(IMqttDeliveryToken token) {
-                // Message delivered successfully
+                // PUBACK received: the delivery travels as the token's user context
+                Object context = token.getUserContext();
+                if (context instanceof Delivery) {
+                    ((Delivery) context).future.complete(null);
+                }
             }
         });
 
-        mqttClient.connect(options);
+        try {
+            client.connect(options).waitForCompletion();
+        } catch (MqttException e) {
+            closeQuietly(client);
+            throw e;
+        }
+        mqttClient = client;
+        currentBroker = uri;
+    }
+
+    private void onConnectionLost(MqttAsyncClient client, Throwable cause) {
+        if (closing || client != mqttClient) {
+            return;
+        }
+        long lostNanos = System.nanoTime();
+        logManager.warn("MQTT connection to " + currentBroker + " lost: " + cause.getMessage());
+        try {
+            supervisor.execute(() -> failover(lostNanos));
+        } catch (RejectedExecutionException e) {
+            // Disconnecting
+        }
+    }
+
+    // Supervisor thread
+    private void checkBrokers(BrokerGroup group) {
+        String broker = currentBroker;
+        if (isConnected() && !group.probeMember(broker)) {
+            abandon(broker);
+        }
+        group.probe(currentBroker);
+    }
+
+    private synchronized void abandon(String broker) {
+        if (closing || !broker.equals(currentBroker) || !isConnected()) {
+            return;
+        }
+        long lostNanos = System.nanoTime();
+        logManager.warn("MQTT broker " + broker + " failed its health probe");
+        closeQuietly(mqttClient);
+        failover(lostNanos);
+    }
+
+    // Supervisor thread
+    private synchronized void failover(long lostNanos) {
+        if (closing || isConnected()) {
+            return;
+        }
+        closeQuietly(mqttClient);
+        BrokerGroup group = brokerGroup;
+        // Brokers known to be down only get a try when none is left that is not
+        List<String> candidates = new ArrayList<>();
+        for (String uri : group.ranked(currentBroker)) {
+            if (group.isReachable(uri)) {
+                candidates.add(uri);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = group.ranked(currentBroker);
+        }
+        for (String uri : candidates) {
+            try {
+                open(uri, FAILOVER_CONNECT_TIMEOUT_S);
+            } catch (Exception e) {
+                group.markDown(uri);
+                continue;
+            }
+            int resent = resendPending(mqttClient);
+            long nanos = System.nanoTime() - lostNanos;
+            failoverTimes.recordNanos(nanos);
+            failoverCount.incrementAndGet();
+            if (metricsEnabled) {
+                metrics.recordFailover(nanos);
+            }
+            logManager.info(String.format("MQTT connected to %s %.0f ms after the connection was lost, "
+                    + "%d unacknowledged messages re-sent", uri, nanos / 1_000_000.0, resent));
+            retryMs = INITIAL_RETRY_MS;
+            return;
+        }
+
+        // Nobody to re-send to: hand the messages back so they end up in the outbox
+        failPending(new Exception("No MQTT broker reachable"));
+        logManager.warn("No MQTT broker reachable, retrying in " + retryMs + " ms");
+        try {
+            supervisor.schedule(() -> {
+                group.probe(null);
+                failover(lostNanos);
+            }, retryMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Disconnecting
+        }
+        retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+    }
+
+    private int resendPending(MqttAsyncClient client) {
+        int resent = 0;
+        for (Delivery delivery : pendingDeliveries) {
+            if (delivery.client == client || delivery.future.isDone()) {
+                continue;
+            }
+            try {
+                send(delivery, client);
+                resent++;
+            } catch (MqttException e) {
+                delivery.future.completeExceptionally(e);
+            }
+        }
+        resentCount.addAndGet(resent);
+        return resent;
+    }
+
+    private void failPending(Exception reason) {
+        for (Delivery delivery : pendingDeliveries) {
+            delivery.future.completeExceptionally(reason);
+        }
+    }
+
+    private void stopSupervisor() {
+        closing = true;
+        if (supervisor != null) {
+            supervisor.shutdownNow();
+            supervisor = null;
+        }
+    }
+
+    private static void closeQuietly(MqttAsyncClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            if (client.isConnected()) {
+                client.disconnectForcibly(0, 0, false);
+            }
+            client.close(true);
+        } catch (MqttException e) {
+            // Already closed
+        }
     }
 
     public void disconnect() {
-        if (mqttClient != null && mqttClient.isConnected()) {
+        stopSupervisor();
+        MqttAsyncClient client = mqttClient;
+        if (client != null && client.isConnected()) {
             try {
-                mqttClient.disconnect();
-                mqttClient.close();
+                client.disconnect().waitForCompletion();
+                client.close();
             } catch (MqttException e) {
-                System.err.println("Error disconnecting from MQTT: " + e.getMessage());
+                logManager.error("Error disconnecting from MQTT: " + e.getMessage());
             }
+        } else {
+            closeQuietly(client);
         }
+
+        failPending(new Exception("MQTT client disconnected before delivery"));
     }
 
+    // Blocks until the message is delivered when the publish mode is SYNC,
+    // otherwise only until it fits into the in-flight window
     public void publish(String topic, String payload) throws Exception {
-        if (mqttClient == null || !mqttClient.isConnected()) {
+        CompletableFuture<Void> delivery = publishAsync(topic, payload);
+
+        if (publishMode == PublishMode.SYNC) {
+            try {
+                delivery.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    public CompletableFuture<Void> publishAsync(String topic, String payload) throws Exception {
+        return publishAsync(topic, payload.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    // Returns a future completed on PUBACK (QoS 1). Waits for a free slot when
+    // the in-flight window is full. arrivalNanos (0 if unknown) is when the data
+    // arrived on the serial port, for end-to-end latency.
+    public CompletableFuture<Void> publishAsync(String topic, byte[] payload, long arrivalNanos) throws Exception {
+        MqttAsyncClient client = mqttClient;
+        if (client == null || !client.isConnected()) {
             throw new Exception("MQTT client is not connected");
         }
 
-        MqttMessage message = new MqttMessage(payload.getBytes());
+        Semaphore window = inflightWindow;
+        window.acquire();
+
+        // The payload is kept until PUBACK for a re-send, so the caller must not reuse it
+        Delivery delivery = new Delivery(topic, payload);
+        CompletableFuture<Void> future = delivery.future;
+        pendingDeliveries.add(delivery);
+        long publishNanos = System.nanoTime();
+        future.whenComplete((result, error) -> {
+            pendingDeliveries.remove(delivery);
+            window.release();
+            if (!metricsEnabled) {
+                return;
+            }
+            if (error == null) {
+                metrics.recordPublished(System.nanoTime() - publishNanos, arrivalNanos);
+            } else {
+                metrics.recordPublishFailure();
+            }
+        });
+
+        try {
+            send(delivery, client);
+        } catch (MqttException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        return future;
+    }
+
+    private void send(Delivery delivery, MqttAsyncClient client) throws MqttException {
+        MqttMessage message = new MqttMessage(delivery.payload);
         message.setQos(1); // QoS 1: At least once delivery
         message.setRetained(false);
+        delivery.client = client;
+
+        client.publish(delivery.topic, message, delivery, new IMqttActionListener() {
+            @Override
+            public void onSuccess(IMqttToken token) {
+                delivery.future.complete(null);
+            }
+
+            @Override
+            public void onFailure(IMqttToken token, Throwable exception) {
+                if (!closing && (client != mqttClient || !client.isConnected())) {
+                    // Lost with the connection; the supervisor re-sends it after failover
+                    return;
+                }
+                delivery.future.completeExceptionally(exception);
+            }
+        });
+    }
+
+    // Waits until every outstanding delivery is acknowledged or failed
+    public boolean awaitDeliveries(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Delivery delivery : pendingDeliveries) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                delivery.future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // Failure is reported to whoever is waiting on the future
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        mqttClient.publish(topic, message);
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public void setPublishMode(PublishMode publishMode) {
+        this.publishMode = publishMode;
+    }
+
+    public PublishMode getPublishMode() {
+        return publishMode;
+    }
+
+    // Takes effect on the next connect
+    public void setProbeIntervalMs(int probeIntervalMs) {
+        this.probeIntervalMs = Math.max(100, probeIntervalMs);
+    }
+
+    public int getProbeIntervalMs() {
+        return probeIntervalMs;
+    }
+
+    // Takes effect on the next connect
+    public void setMaxInflight(int maxInflight) {
+        this.maxInflight = maxInflight;
+    }
+
+    public int getMaxInflight() {
+        return maxInflight;
+    }
+
+    public int getInflightCount() {
+        return pendingDeliveries.size();
     }
 
     public boolean isConnected() {
@@ -80,4 +443,42 @@ public class MqttService {
     public String getCurrentBroker() {
         return currentBroker;
     }
+
+    public BrokerGroup getBrokerGroup() {
+        return brokerGroup;
+    }
+
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    public long getResentCount() {
+        return resentCount.get();
+    }
+
+    // From the lost connection to the next one, including re-sending
+    public LatencyHistogram getFailoverTimes() {
+        return failoverTimes;
+    }
+
+    public String getStatsSummary() {
+        BrokerGroup group = brokerGroup;
+        return String.format("broker=%s, connected=%s, failovers=%d, resent=%d, failover p50=%.0f ms, max=%.0f ms, "
+                        + "group=[%s]", currentBroker, isConnected(), getFailoverCount(), getResentCount(),
+                failoverTimes.getQuantileMillis(0.5), failoverTimes.getMaxMillis(),
+                group != null ? group.describe() : "");
+    }
+
+    private static final class Delivery {
+        private final String topic;
+        private final byte[] payload;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // The client it was last sent with
+        private volatile MqttAsyncClient client;
+
+        private Delivery(String topic, byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
 }
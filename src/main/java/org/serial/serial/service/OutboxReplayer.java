@@ -0,0 +1,117 @@
+package org.serial.serial.service;
+
+import org.serial.serial.store.Outbox;
+import org.serial.serial.util.LogManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the outbox in order once the broker is reachable again, at a bounded rate
+// so the backlog does not starve live readings of in-flight slots.
+public class OutboxReplayer {
+    public static final int DEFAULT_REPLAY_RATE = 50;
+    private static final long IDLE_WAIT_MS = 500;
+    private static final long RETRY_DELAY_MS = 2000;
+
+    private final Outbox outbox;
+    private final MqttService mqttService;
+    private final LogManager logManager;
+    private volatile int replayRatePerSecond = DEFAULT_REPLAY_RATE;
+    private volatile boolean running = false;
+    private Thread replayThread;
+
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    public OutboxReplayer(Outbox outbox, MqttService mqttService) {
+        this.outbox = outbox;
+        this.mqttService = mqttService;
+        this.logManager = LogManager.getInstance();
+    }
+
+    public void setReplayRatePerSecond(int replayRatePerSecond) {
+        this.replayRatePerSecond = replayRatePerSecond;
+    }
+
+    public int getReplayRatePerSecond() {
+        return replayRatePerSecond;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        replayThread = new Thread(this::replayLoop, "outbox-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (replayThread != null) {
+            replayThread.interrupt();
+            try {
+                replayThread.join(IDLE_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void replayLoop() {
+        boolean replaying = false;
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (!mqttService.isConnected() || outbox.isEmpty()) {
+                    if (replaying && outbox.isEmpty()) {
+                        logManager.info("Outbox replay complete. Total replayed: " + replayedCount.get());
+                    }
+                    replaying = false;
+                    Thread.sleep(IDLE_WAIT_MS);
+                    continue;
+                }
+
+                if (!replaying) {
+                    logManager.info("Replaying " + outbox.getPendingCount() + " stored messages");
+                    replaying = true;
+                }
+
+                long sendStart = System.nanoTime();
+                Outbox.Entry entry = outbox.peek();
+                if (entry == null) {
+                    continue;
+                }
+
+                try {
+                    mqttService.publishAsync(entry.getTopic(), entry.getPayload(), 0).get();
+                    outbox.commit();
+                    replayedCount.incrementAndGet();
+                } catch (ExecutionException e) {
+                    logManager.warn("Outbox replay failed, retrying: " + e.getCause().getMessage());
+                    Thread.sleep(RETRY_DELAY_MS);
+                    continue;
+                }
+
+                long intervalNanos = 1_000_000_000L / Math.max(replayRatePerSecond, 1);
+                long remainingNanos = intervalNanos - (System.nanoTime() - sendStart);
+                if (remainingNanos > 0) {
+                    Thread.sleep(remainingNanos / 1_000_000, (int) (remainingNanos % 1_000_000));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logManager.error("Outbox replay error: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+}
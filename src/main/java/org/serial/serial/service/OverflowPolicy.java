@@ -0,0 +1,21 @@
+package org.serial.serial.service;
+
+public enum OverflowPolicy {
+    // Producer waits until the publisher frees a slot
+    BLOCK("Block"),
+    // Oldest queued message is discarded to make room
+    DROP_OLDEST("Drop Oldest"),
+    // A queued message for the same topic is replaced by the newest one
+    COALESCE_LATEST("Coalesce to Latest");
+
+    private final String label;
+
+    OverflowPolicy(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,209 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reference decoder for CBOR payloads, for consumers and tests. A reading is a map with
+// integer keys; only the fields of the PayloadSchema are present:
+//   1 timestamp  unsigned int, epoch milliseconds
+//   2 deviceId   text
+//   3 port       text
+//   4 weight     int, or tag 4 [exponent, mantissa] = mantissa * 10^exponent
+//   5 unit       text (kg, g, t, lb, oz)
+//   6 type       0 GROSS, 1 NET, 2 TARE, 3 UNKNOWN
+//   7 stability  0 STABLE, 1 MOTION, 2 OVERLOAD, 3 UNKNOWN
+//   8 stable     true / false
+//   9 raw        text, instead of weight/unit/type/stability for unparsable frames
+// A batch is an indefinite-length array of such maps. decodeReadings() returns maps keyed
+// by field name holding Long, BigDecimal, String and Boolean values.
+public final class PayloadDecoder {
+    private final byte[] data;
+    private int position;
+
+    private PayloadDecoder(byte[] data) {
+        this.data = data;
+    }
+
+    // A single reading or a batch, always returned as a list of readings
+    public static List<Map<String, Object>> decodeReadings(byte[] payload) {
+        Object value = decode(payload);
+        List<Map<String, Object>> readings = new ArrayList<>();
+        if (value instanceof Map) {
+            readings.add(toReading((Map<?, ?>) value));
+        } else if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("Batch element is not a reading: " + item);
+                }
+                readings.add(toReading((Map<?, ?>) item));
+            }
+        } else {
+            throw new IllegalArgumentException("Payload is not a reading: " + value);
+        }
+        return readings;
+    }
+
+    private static Map<String, Object> toReading(Map<?, ?> map) {
+        Map<String, Object> reading = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof Long)) {
+                throw new IllegalArgumentException("Reading key is not an integer: " + entry.getKey());
+            }
+            int key = ((Long) entry.getKey()).intValue();
+            Object value = entry.getValue();
+            if (key == PayloadField.RAW_CBOR_KEY) {
+                reading.put(PayloadField.RAW_KEY, value);
+                continue;
+            }
+            PayloadField field = fieldForKey(key);
+            if (field == PayloadField.TYPE) {
+                value = WeightType.values()[((Long) value).intValue()].name();
+            } else if (field == PayloadField.STABILITY) {
+                value = Stability.values()[((Long) value).intValue()].name();
+            }
+            reading.put(field.getKey(), value);
+        }
+        return reading;
+    }
+
+    private static PayloadField fieldForKey(int key) {
+        for (PayloadField field : PayloadField.values()) {
+            if (field.getCborKey() == key) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reading key " + key);
+    }
+
+    public static Object decode(byte[] payload) {
+        PayloadDecoder decoder = new PayloadDecoder(payload);
+        Object value = decoder.readItem();
+        if (decoder.position != payload.length) {
+            throw new IllegalArgumentException("Trailing bytes after CBOR item at " + decoder.position);
+        }
+        return value;
+    }
+
+    private Object readItem() {
+        int initial = readByte();
+        int majorType = initial >>> 5;
+        int info = initial & 0x1F;
+
+        switch (majorType) {
+            case 0:
+                return readArgument(info);
+            case 1:
+                return -1 - readArgument(info);
+            case 3:
+                int textLength = (int) readArgument(info);
+                require(textLength);
+                String text = new String(data, position, textLength, StandardCharsets.UTF_8);
+                position += textLength;
+                return text;
+            case 4:
+                List<Object> items = new ArrayList<>();
+                if (info == 31) {
+                    while (peekByte() != 0xFF) {
+                        items.add(readItem());
+                    }
+                    position++;
+                } else {
+                    for (long i = readArgument(info); i > 0; i--) {
+                        items.add(readItem());
+                    }
+                }
+                return items;
+            case 5:
+                Map<Object, Object> map = new LinkedHashMap<>();
+                if (info == 31) {
+                    while (peekByte() != 0xFF) {
+                        map.put(readItem(), readItem());
+                    }
+                    position++;
+                } else {
+                    for (long i = readArgument(info); i > 0; i--) {
+                        map.put(readItem(), readItem());
+                    }
+                }
+                return map;
+            case 6:
+                long tag = readArgument(info);
+                Object content = readItem();
+                if (tag == 4 && content instanceof List && ((List<?>) content).size() == 2) {
+                    List<?> fraction = (List<?>) content;
+                    int exponent = ((Long) fraction.get(0)).intValue();
+                    return new BigDecimal(BigInteger.valueOf((Long) fraction.get(1)), -exponent);
+                }
+                return content;
+            case 7:
+                switch (info) {
+                    case 20:
+                        return Boolean.FALSE;
+                    case 21:
+                        return Boolean.TRUE;
+                    case 22:
+                    case 23:
+                        return null;
+                    case 26:
+                        return (double) Float.intBitsToFloat((int) readBigEndian(4));
+                    case 27:
+                        return Double.longBitsToDouble(readBigEndian(8));
+                    default:
+                        throw new IllegalArgumentException("Unsupported simple value " + info);
+                }
+            default:
+                throw new IllegalArgumentException("Unsupported CBOR major type " + majorType);
+        }
+    }
+
+    private long readArgument(int info) {
+        if (info < 24) {
+            return info;
+        }
+        switch (info) {
+            case 24:
+                return readBigEndian(1);
+            case 25:
+                return readBigEndian(2);
+            case 26:
+                return readBigEndian(4);
+            case 27:
+                return readBigEndian(8);
+            default:
+                throw new IllegalArgumentException("Unsupported CBOR argument " + info + " at " + (position - 1));
+        }
+    }
+
+    private long readBigEndian(int bytes) {
+        require(bytes);
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    private int peekByte() {
+        require(1);
+        return data[position] & 0xFF;
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > data.length) {
+            throw new IllegalArgumentException("Truncated CBOR payload at " + position);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightType;
+import org.serial.serial.model.WeightUnit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+// Writes a reading as UTF-8 JSON or as CBOR straight into a reusable byte buffer. The
+// formatted JSON timestamp is cached for the current second, numbers are written digit
+// by digit and strings are escaped while they are copied, so encode() allocates nothing
+// once the buffer has grown to size. Not thread-safe: keep one encoder per reader thread.
+public class PayloadEncoder {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RAW_KEY = ("\"" + PayloadField.RAW_KEY + "\":").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int CBOR_UNSIGNED = 0;
+    private static final int CBOR_NEGATIVE = 1;
+    private static final int CBOR_TEXT = 3;
+    private static final int CBOR_ARRAY = 4;
+    private static final int CBOR_MAP = 5;
+    private static final int CBOR_TAG = 6;
+    private static final int CBOR_DECIMAL_FRACTION = 4;
+    private static final byte CBOR_FALSE = (byte) 0xF4;
+    private static final byte CBOR_TRUE = (byte) 0xF5;
+    private static final byte CBOR_FLOAT64 = (byte) 0xFB;
+    // Mean and standard deviation get two more decimals than the readings
+    private static final int EXTRA_DECIMALS = 2;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private long cachedSecond = Long.MIN_VALUE;
+    private String timestampText;
+    private byte[] timestampBytes;
+
+    // Returns the number of bytes written to getBuffer()
+    public int encode(PayloadSchema schema, String port, WeightReading reading) {
+        length = 0;
+        if (schema.getFormat() == PayloadFormat.CBOR) {
+            encodeCbor(schema, port, reading);
+        } else {
+            encodeJson(schema, port, reading);
+        }
+        return length;
+    }
+
+    // Frames that could not be parsed keep their identifying fields and send the raw text
+    // instead; unknown unit and type are left out
+    private static boolean includes(PayloadField field, WeightReading reading) {
+        if (!reading.isValid()) {
+            return field == PayloadField.TIMESTAMP || field == PayloadField.DEVICE_ID || field == PayloadField.PORT;
+        }
+        return !(field == PayloadField.UNIT && reading.getUnit() == WeightUnit.UNKNOWN)
+                && !(field == PayloadField.TYPE && reading.getType() == WeightType.UNKNOWN);
+    }
+
+    private void encodeJson(PayloadSchema schema, String port, WeightReading reading) {
+        updateTimestamp(reading.getTimestampMillis());
+        boolean valid = reading.isValid();
+
+        writeByte('{');
+        boolean first = true;
+        for (PayloadField field : schema.getFieldArray()) {
+            if (!includes(field, reading)) {
+                continue;
+            }
+            if (!first) {
+                writeByte(',');
+            }
+            first = false;
+            writeBytes(field.getJsonKey());
+
+            switch (field) {
+                case TIMESTAMP:
+                    writeByte('"');
+                    writeBytes(timestampBytes);
+                    writeByte('"');
+                    break;
+                case DEVICE_ID:
+                    writeString(schema.getDeviceId());
+                    break;
+                case PORT:
+                    writeString(port);
+                    break;
+                case WEIGHT:
+                    writeFixedPoint(reading.getValue(), reading.getDecimals());
+                    break;
+                case UNIT:
+                    writeString(reading.getUnit().getSymbol());
+                    break;
+                case TYPE:
+                    writeString(reading.getType().name());
+                    break;
+                case STABILITY:
+                    writeString(reading.getStability().name());
+                    break;
+                case STABLE:
+                    writeBytes(reading.getStability() == Stability.STABLE ? TRUE : FALSE);
+                    break;
+            }
+        }
+        if (!valid) {
+            if (!first) {
+                writeByte(',');
+            }
+            writeBytes(RAW_KEY);
+            writeString(reading.getRaw());
+        }
+        writeByte('}');
+    }
+
+    // A definite-length map with small integer keys (PayloadField.getCborKey). The timestamp
+    // is epoch milliseconds, the weight a decimal fraction (tag 4: [exponent, mantissa]) so
+    // the fixed-point value arrives exactly, type and stability their enum ordinal.
+    // Integers use the shortest encoding. PayloadDecoder documents the layout.
+    private void encodeCbor(PayloadSchema schema, String port, WeightReading reading) {
+        int entries = reading.isValid() ? 0 : 1;
+        for (PayloadField field : schema.getFieldArray()) {
+            if (includes(field, reading)) {
+                entries++;
+            }
+        }
+        writeCborHead(CBOR_MAP, entries);
+
+        for (PayloadField field : schema.getFieldArray()) {
+            if (!includes(field, reading)) {
+                continue;
+            }
+            writeCborHead(CBOR_UNSIGNED, field.getCborKey());
+            switch (field) {
+                case TIMESTAMP:
+                    writeCborInteger(reading.getTimestampMillis());
+                    break;
+                case DEVICE_ID:
+                    writeCborText(schema.getDeviceId());
+                    break;
+                case PORT:
+                    writeCborText(port);
+                    break;
+                case WEIGHT:
+                    if (reading.getDecimals() > 0) {
+                        writeCborHead(CBOR_TAG, CBOR_DECIMAL_FRACTION);
+                        writeCborHead(CBOR_ARRAY, 2);
+                        writeCborInteger(-reading.getDecimals());
+                    }
+                    writeCborInteger(reading.getValue());
+                    break;
+                case UNIT:
+                    writeCborText(reading.getUnit().getSymbol());
+                    break;
+                case TYPE:
+                    writeCborHead(CBOR_UNSIGNED, reading.getType().ordinal());
+                    break;
+                case STABILITY:
+                    writeCborHead(CBOR_UNSIGNED, reading.getStability().ordinal());
+                    break;
+                case STABLE:
+                    ensureCapacity(1);
+                    buffer[length++] = reading.getStability() == Stability.STABLE ? CBOR_TRUE : CBOR_FALSE;
+                    break;
+            }
+        }
+        if (!reading.isValid()) {
+            writeCborHead(CBOR_UNSIGNED, PayloadField.RAW_CBOR_KEY);
+            writeCborText(reading.getRaw());
+        }
+    }
+
+    // Window aggregate, JSON or CBOR (SERIES falls back to JSON). Text keys in both formats:
+    //   {"port":"COM3","window":"TUMBLING","start":<epoch ms>,"end":<epoch ms>,"count":10,
+    //    "min":12.340,"max":12.350,"mean":12.34520,"stddev":0.00310,"last":12.345,"unit":"kg"}
+    // In CBOR min, max and last are decimal fractions and mean and stddev float64.
+    public byte[] encodeWindow(PayloadFormat format, String port, WindowStats stats) {
+        length = 0;
+        boolean cbor = format == PayloadFormat.CBOR;
+        boolean hasUnit = stats.getUnit() != WeightUnit.UNKNOWN;
+        if (cbor) {
+            writeCborHead(CBOR_MAP, hasUnit ? 11 : 10);
+        } else {
+            writeByte('{');
+        }
+        windowKey(cbor, "port", true);
+        writeText(cbor, port);
+        windowKey(cbor, "window", false);
+        writeText(cbor, stats.getMode().name());
+        windowKey(cbor, "start", false);
+        writeInteger(cbor, stats.getStartMillis());
+        windowKey(cbor, "end", false);
+        writeInteger(cbor, stats.getEndMillis());
+        windowKey(cbor, "count", false);
+        writeInteger(cbor, stats.getCount());
+        windowKey(cbor, "min", false);
+        writeWeight(cbor, stats.getMin(), stats.getDecimals());
+        windowKey(cbor, "max", false);
+        writeWeight(cbor, stats.getMax(), stats.getDecimals());
+        windowKey(cbor, "mean", false);
+        writeDouble(cbor, stats.getMean(), stats.getDecimals() + EXTRA_DECIMALS);
+        windowKey(cbor, "stddev", false);
+        writeDouble(cbor, stats.getStddev(), stats.getDecimals() + EXTRA_DECIMALS);
+        windowKey(cbor, "last", false);
+        writeWeight(cbor, stats.getLast(), stats.getDecimals());
+        if (hasUnit) {
+            windowKey(cbor, "unit", false);
+            writeText(cbor, stats.getUnit().getSymbol());
+        }
+        if (!cbor) {
+            writeByte('}');
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void windowKey(boolean cbor, String key, boolean first) {
+        if (cbor) {
+            writeCborText(key);
+            return;
+        }
+        if (!first) {
+            writeByte(',');
+        }
+        writeString(key);
+        writeByte(':');
+    }
+
+    private void writeText(boolean cbor, String value) {
+        if (cbor) {
+            writeCborText(value);
+        } else {
+            writeString(value);
+        }
+    }
+
+    private void writeInteger(boolean cbor, long value) {
+        if (cbor) {
+            writeCborInteger(value);
+        } else {
+            if (value < 0) {
+                writeByte('-');
+            }
+            writeDigits(value, 1);
+        }
+    }
+
+    private void writeWeight(boolean cbor, long value, int decimals) {
+        if (!cbor) {
+            writeFixedPoint(value, decimals);
+            return;
+        }
+        if (decimals > 0) {
+            writeCborHead(CBOR_TAG, CBOR_DECIMAL_FRACTION);
+            writeCborHead(CBOR_ARRAY, 2);
+            writeCborInteger(-decimals);
+        }
+        writeCborInteger(value);
+    }
+
+    // JSON rounds to the given decimals
+    private void writeDouble(boolean cbor, double value, int decimals) {
+        if (cbor) {
+            ensureCapacity(9);
+            buffer[length++] = CBOR_FLOAT64;
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+            return;
+        }
+        decimals = Math.min(decimals, WeightReading.MAX_DECIMALS);
+        writeFixedPoint(Math.round(value * Math.pow(10, decimals)), decimals);
+    }
+
+    // The payload handed to the publisher has to outlive the next encode(), so it gets its own array
+    public byte[] encodeToArray(PayloadSchema schema, String port, WeightReading reading) {
+        return Arrays.copyOf(buffer, encode(schema, port, reading));
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // yyyy-MM-dd HH:mm:ss in local time; the same instance is returned for a whole second
+    public String formatTimestamp(long timestampMillis) {
+        updateTimestamp(timestampMillis);
+        return timestampText;
+    }
+
+    private void updateTimestamp(long timestampMillis) {
+        long second = Math.floorDiv(timestampMillis, 1000);
+        if (second == cachedSecond) {
+            return;
+        }
+        cachedSecond = second;
+        timestampText = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                .format(TIMESTAMP_FORMATTER);
+        timestampBytes = timestampText.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void writeFixedPoint(long value, int decimals) {
+        if (value < 0) {
+            writeByte('-');
+        }
+        if (decimals == 0) {
+            writeDigits(value, 1);
+            return;
+        }
+        // Split without Math.abs so Long.MIN_VALUE survives
+        long divisor = 1;
+        for (int i = 0; i < decimals; i++) {
+            divisor *= 10;
+        }
+        writeDigits(value / divisor, 1);
+        writeByte('.');
+        writeDigits(value % divisor, decimals);
+    }
+
+    // Writes |value| with at least minDigits digits, zero padded on the left
+    private void writeDigits(long value, int minDigits) {
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        ensureCapacity(digits);
+        int position = length + digits;
+        for (int i = 0; i < digits; i++) {
+            buffer[--position] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    // Quoted JSON string: quote, backslash and control characters escaped, everything else as UTF-8
+    private void writeString(String value) {
+        ensureCapacity(value.length() * 6 + 2);
+        buffer[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[length++] = '\\';
+                buffer[length++] = (byte) c;
+            } else if (c < 0x20) {
+                buffer[length++] = '\\';
+                switch (c) {
+                    case '\n':
+                        buffer[length++] = 'n';
+                        break;
+                    case '\r':
+                        buffer[length++] = 'r';
+                        break;
+                    case '\t':
+                        buffer[length++] = 't';
+                        break;
+                    default:
+                        buffer[length++] = 'u';
+                        buffer[length++] = '0';
+                        buffer[length++] = '0';
+                        buffer[length++] = HEX[c >> 4];
+                        buffer[length++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else {
+                i = writeUtf8(value, i);
+            }
+        }
+        buffer[length++] = '"';
+    }
+
+    private void writeCborInteger(long value) {
+        if (value >= 0) {
+            writeCborHead(CBOR_UNSIGNED, value);
+        } else {
+            // -1 - value, which cannot overflow for negative values
+            writeCborHead(CBOR_NEGATIVE, ~value);
+        }
+    }
+
+    private void writeCborText(String value) {
+        writeCborHead(CBOR_TEXT, utf8Length(value));
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else {
+                i = writeUtf8(value, i);
+            }
+        }
+    }
+
+    // Major type in the top three bits, then the argument in the shortest form
+    private void writeCborHead(int majorType, long argument) {
+        ensureCapacity(9);
+        int type = majorType << 5;
+        if (argument < 24) {
+            buffer[length++] = (byte) (type | argument);
+        } else if (argument < 0x100) {
+            buffer[length++] = (byte) (type | 24);
+            buffer[length++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            buffer[length++] = (byte) (type | 25);
+            writeBigEndian(argument, 2);
+        } else if (argument < 0x100000000L) {
+            buffer[length++] = (byte) (type | 26);
+            writeBigEndian(argument, 4);
+        } else {
+            buffer[length++] = (byte) (type | 27);
+            writeBigEndian(argument, 8);
+        }
+    }
+
+    private void writeBigEndian(long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    // Writes the non-ASCII character at index i and returns the index of its last char
+    private int writeUtf8(String value, int i) {
+        char c = value.charAt(i);
+        if (c < 0x800) {
+            buffer[length++] = (byte) (0xC0 | (c >> 6));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate: not representable in UTF-8
+            buffer[length++] = '?';
+        } else {
+            buffer[length++] = (byte) (0xE0 | (c >> 12));
+            buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.serial.serial.service;
+
+import java.nio.charset.StandardCharsets;
+
+// Fields that can appear in a published reading, in the order given by the PayloadSchema
+public enum PayloadField {
+    TIMESTAMP("timestamp", 1),
+    DEVICE_ID("deviceId", 2),
+    PORT("port", 3),
+    WEIGHT("weight", 4),
+    UNIT("unit", 5),
+    TYPE("type", 6),
+    STABILITY("stability", 7),
+    // true/false, for consumers that only care whether the reading is settled
+    STABLE("stable", 8);
+
+    // Key of the raw text of unparsable frames, which is not a selectable field
+    public static final String RAW_KEY = "raw";
+    public static final int RAW_CBOR_KEY = 9;
+
+    private final String key;
+    // Map key in CBOR payloads; part of the wire format, never renumber
+    private final int cborKey;
+    // "key": as UTF-8, written as-is by the encoder
+    private final byte[] jsonKey;
+
+    PayloadField(String key, int cborKey) {
+        this.key = key;
+        this.cborKey = cborKey;
+        this.jsonKey = ("\"" + key + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getCborKey() {
+        return cborKey;
+    }
+
+    byte[] getJsonKey() {
+        return jsonKey;
+    }
+
+    // Accepts the JSON key (deviceId) as well as the constant name (DEVICE_ID)
+    public static PayloadField fromKey(String key) {
+        for (PayloadField field : values()) {
+            if (field.key.equalsIgnoreCase(key) || field.name().equalsIgnoreCase(key)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payload field: " + key);
+    }
+}
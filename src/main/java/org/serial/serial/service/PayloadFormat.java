@@ -0,0 +1,47 @@
+package org.serial.serial.service;
+
+// Encoding of published readings. MQTT 3.1.1 has no content-type property, so binary
+// payloads are published under a topic suffix, e.g. sensor/weight/COM3/cbor.
+public enum PayloadFormat {
+    JSON("JSON", "", new byte[]{'['}, new byte[]{','}, new byte[]{']'}),
+    // RFC 8949 map; see PayloadDecoder for the layout
+    CBOR("CBOR (binary)", "/cbor", new byte[]{(byte) 0x9F}, new byte[0], new byte[]{(byte) 0xFF}),
+    // Delta-compressed run of readings (SeriesEncoder); the schema fields do not apply
+    SERIES("Compressed series", "/series", new byte[0], new byte[0], new byte[0]);
+
+    private final String label;
+    private final String topicSuffix;
+    // Batches are a JSON array or an indefinite-length CBOR array of readings
+    private final byte[] batchStart;
+    private final byte[] batchSeparator;
+    private final byte[] batchEnd;
+
+    PayloadFormat(String label, String topicSuffix, byte[] batchStart, byte[] batchSeparator, byte[] batchEnd) {
+        this.label = label;
+        this.topicSuffix = topicSuffix;
+        this.batchStart = batchStart;
+        this.batchSeparator = batchSeparator;
+        this.batchEnd = batchEnd;
+    }
+
+    public String getTopicSuffix() {
+        return topicSuffix;
+    }
+
+    byte[] getBatchStart() {
+        return batchStart;
+    }
+
+    byte[] getBatchSeparator() {
+        return batchSeparator;
+    }
+
+    byte[] getBatchEnd() {
+        return batchEnd;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,70 @@
+package org.serial.serial.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Which fields a reading carries and in which order, the device id to stamp on every
+// reading and the encoding. Immutable so encoders on several reader threads can share it.
+public final class PayloadSchema {
+    public static final String DEFAULT_FIELDS = "timestamp,weight,unit,type,stability";
+    public static final PayloadSchema DEFAULT = parse(DEFAULT_FIELDS, "");
+
+    private final PayloadField[] fields;
+    private final String deviceId;
+    private final PayloadFormat format;
+
+    public PayloadSchema(List<PayloadField> fields, String deviceId, PayloadFormat format) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Payload schema needs at least one field");
+        }
+        this.fields = fields.toArray(new PayloadField[0]);
+        this.deviceId = deviceId != null ? deviceId : "";
+        this.format = format;
+    }
+
+    // Comma separated field keys, e.g. "timestamp,deviceId,port,weight,unit,stable"
+    public static PayloadSchema parse(String fieldList, String deviceId) {
+        return parse(fieldList, deviceId, PayloadFormat.JSON);
+    }
+
+    public static PayloadSchema parse(String fieldList, String deviceId, PayloadFormat format) {
+        List<PayloadField> fields = new ArrayList<>();
+        for (String key : fieldList.split(",")) {
+            if (!key.isBlank()) {
+                PayloadField field = PayloadField.fromKey(key.trim());
+                if (!fields.contains(field)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return new PayloadSchema(fields, deviceId, format);
+    }
+
+    PayloadField[] getFieldArray() {
+        return fields;
+    }
+
+    public List<PayloadField> getFields() {
+        return List.of(fields);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public PayloadFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (PayloadField field : fields) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(field.getKey());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package org.serial.serial.service;
+
+import org.serial.serial.metrics.LatencyHistogram;
+
+// Decides when a polled indicator gets its next request. Every complete frame answers
+// the oldest outstanding request and the next one goes out as soon as it is answered, so
+// a scale that needs 250 ms is polled every 250 ms and a fast one every minIntervalMs,
+// the configured ceiling. A request unanswered for timeoutMs is written off and the
+// interval backs off (doubling up to MAX_BACKOFF_MS); every answer halves the backoff
+// again. With pipelineDepth > 1, up to that many requests are outstanding at once for
+// indicators that queue requests, spaced by the smoothed round trip / depth.
+// Written-off requests are remembered for another timeoutMs and no request goes out
+// meanwhile (frames carry no request id): frames arriving in that window are their late
+// answers, counted as such and kept out of the response times.
+// State is touched by the reader thread only; the counters are read by the UI.
+public class PollScheduler {
+    public static final int DEFAULT_MIN_INTERVAL_MS = 50;
+    public static final int DEFAULT_TIMEOUT_MS = 1000;
+    public static final int DEFAULT_PIPELINE_DEPTH = 1;
+    public static final long MAX_BACKOFF_MS = 5000;
+
+    private final long minIntervalNanos;
+    private final long timeoutNanos;
+    private final long[] outstanding;
+    private int head;
+    private int count;
+    private final long[] writtenOff;
+    private int writtenOffHead;
+    private int writtenOffCount;
+    private long writtenOffUntilNanos;
+    private long nextRequestNanos;
+    private long smoothedRttNanos;
+    private volatile long backoffNanos;
+
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final long startNanos = System.nanoTime();
+    private volatile long requests;
+    private volatile long responses;
+    private volatile long timeouts;
+    private volatile long lateResponses;
+    private volatile long unsolicited;
+
+    public PollScheduler(int minIntervalMs, int timeoutMs, int pipelineDepth) {
+        this.minIntervalNanos = Math.max(1, minIntervalMs) * 1_000_000L;
+        this.timeoutNanos = Math.max(1, timeoutMs) * 1_000_000L;
+        this.outstanding = new long[Math.max(1, pipelineDepth)];
+        this.writtenOff = new long[outstanding.length];
+    }
+
+    // 0 when a request is due now, Long.MAX_VALUE while the pipeline is full
+    public long nanosUntilNextRequest(long nowNanos) {
+        if (count == outstanding.length) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, nextRequestNanos - nowNanos);
+    }
+
+    public void onRequestSent(long nowNanos) {
+        outstanding[(head + count) % outstanding.length] = nowNanos;
+        count++;
+        requests++;
+        long spacing = outstanding.length > 1 ? smoothedRttNanos / outstanding.length : 0;
+        nextRequestNanos = nowNanos + Math.max(minIntervalNanos, spacing) + backoffNanos;
+    }
+
+    // Returns when the answered request was sent, or 0 for a frame nobody asked for
+    public long onResponse(long nowNanos) {
+        if (isAwaitingLateAnswers(nowNanos)) {
+            long sentNanos = writtenOff[writtenOffHead];
+            writtenOffHead = (writtenOffHead + 1) % writtenOff.length;
+            writtenOffCount--;
+            lateResponses++;
+            if (writtenOffCount == 0) {
+                // All accounted for, no need to sit out the rest of the window
+                nextRequestNanos = Math.min(nextRequestNanos, nowNanos + backoffNanos);
+            }
+            return sentNanos;
+        }
+        writtenOffCount = 0;
+        if (count == 0) {
+            unsolicited++;
+            return 0;
+        }
+        long sentNanos = outstanding[head];
+        head = (head + 1) % outstanding.length;
+        count--;
+        long rtt = nowNanos - sentNanos;
+        responseTimes.recordNanos(rtt);
+        // Smoothed like TCP's SRTT (gain 1/8)
+        smoothedRttNanos = smoothedRttNanos == 0 ? rtt : smoothedRttNanos + (rtt - smoothedRttNanos) / 8;
+        backoffNanos = backoffNanos < 2_000_000 ? 0 : backoffNanos / 2;
+        nextRequestNanos = Math.max(nextRequestNanos, nowNanos + backoffNanos);
+        responses++;
+        return sentNanos;
+    }
+
+    // Writes off the outstanding requests once the oldest is overdue
+    public boolean checkTimeout(long nowNanos) {
+        if (count == 0 || nowNanos - outstanding[head] < timeoutNanos) {
+            return false;
+        }
+        timeouts += count;
+        for (int i = 0; i < count; i++) {
+            writtenOff[i] = outstanding[(head + i) % outstanding.length];
+        }
+        writtenOffHead = 0;
+        writtenOffCount = count;
+        writtenOffUntilNanos = nowNanos + timeoutNanos;
+        count = 0;
+        backoffNanos = Math.min(MAX_BACKOFF_MS * 1_000_000L, Math.max(minIntervalNanos, backoffNanos * 2));
+        nextRequestNanos = Math.max(nowNanos + backoffNanos, writtenOffUntilNanos);
+        return true;
+    }
+
+    // True while frames may still be late answers to written-off requests
+    public boolean isAwaitingLateAnswers(long nowNanos) {
+        return writtenOffCount > 0 && nowNanos - writtenOffUntilNanos < 0;
+    }
+
+    public int getOutstanding() {
+        return count;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getUnsolicited() {
+        return unsolicited;
+    }
+
+    // Answers that came after their request had timed out
+    public long getLateResponses() {
+        return lateResponses;
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public double getPollRate() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds > 0 ? responses / seconds : 0;
+    }
+
+    public double getBackoffMillis() {
+        return backoffNanos / 1_000_000.0;
+    }
+
+    public String getStatsSummary() {
+        return String.format("polls=%d, answered=%d, timeouts=%d, late=%d, unsolicited=%d, rate=%.1f/s, "
+                        + "response p50=%.1f ms, p90=%.1f ms, p99=%.1f ms, max=%.1f ms, backoff=%.0f ms",
+                requests, responses, timeouts, lateResponses, unsolicited, getPollRate(),
+                responseTimes.getQuantileMillis(0.5), responseTimes.getQuantileMillis(0.9),
+                responseTimes.getQuantileMillis(0.99),
+                responseTimes.getMaxMillis(), getBackoffMillis());
+    }
+}
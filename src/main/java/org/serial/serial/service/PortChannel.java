@@ -0,0 +1,84 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightReading;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+// One configured scale: its serial settings, reader and per-port counters
+public class PortChannel {
+    public enum Status { STOPPED, RUNNING, FAILED }
+
+    private final PortConfig config;
+    private final SerialService serialService;
+    private volatile Status status = Status.STOPPED;
+    private volatile String lastError;
+    private volatile long lastReadingMillis;
+    private final AtomicLong messageCount = new AtomicLong();
+
+    public PortChannel(PortConfig config) {
+        this.config = config;
+        this.serialService = new SerialService();
+    }
+
+    void start(BiConsumer<PortChannel, WeightReading> readingHandler) throws Exception {
+        messageCount.set(0);
+        lastError = null;
+        serialService.setReadMode(config.getReadMode());
+        serialService.setFraming(config.getFraming());
+        serialService.setFrameLength(config.getFrameLength());
+        serialService.setPollIntervalMs(config.getPollIntervalMs());
+        serialService.setPollTimeoutMs(config.getPollTimeoutMs());
+        serialService.setPollPipelineDepth(config.getPollPipelineDepth());
+        serialService.setReadingCallback(reading -> {
+            messageCount.incrementAndGet();
+            lastReadingMillis = reading.getTimestampMillis();
+            readingHandler.accept(this, reading);
+        });
+
+        try {
+            serialService.connect(config.getPortName(), config.getBaudRate(), config.getDataBits(),
+                    config.getStopBits(), config.getParity());
+            status = Status.RUNNING;
+        } catch (Exception e) {
+            status = Status.FAILED;
+            lastError = e.getMessage();
+            throw e;
+        }
+    }
+
+    void stop() {
+        serialService.disconnect();
+        if (status == Status.RUNNING) {
+            status = Status.STOPPED;
+        }
+    }
+
+    public PortConfig getConfig() {
+        return config;
+    }
+
+    public String getPortName() {
+        return config.getPortName();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public long getLastReadingMillis() {
+        return lastReadingMillis;
+    }
+
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    public SerialService getSerialService() {
+        return serialService;
+    }
+}
@@ -0,0 +1,141 @@
+package org.serial.serial.service;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+public class PortConfig {
+    public static final int DEFAULT_BAUD_RATE = 9600;
+
+    private final String portName;
+    private int baudRate = DEFAULT_BAUD_RATE;
+    private int dataBits = 8;
+    private int stopBits = SerialPort.ONE_STOP_BIT;
+    private int parity = SerialPort.NO_PARITY;
+    private ReadMode readMode = ReadMode.POLLING;
+    private Framing framing = Framing.LINE;
+    // Bytes per frame for FIXED_LENGTH framing, which needs it; the maximum frame size of
+    // the delimiter framings otherwise (0 = FrameDecoder.DEFAULT_MAX_FRAME_LENGTH)
+    private int frameLength = 0;
+    private int pollIntervalMs = PollScheduler.DEFAULT_MIN_INTERVAL_MS;
+    private int pollTimeoutMs = PollScheduler.DEFAULT_TIMEOUT_MS;
+    private int pollPipelineDepth = PollScheduler.DEFAULT_PIPELINE_DEPTH;
+    private String topic;
+
+    public PortConfig(String portName, String topic) {
+        this.portName = portName;
+        this.topic = topic;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public int getBaudRate() {
+        return baudRate;
+    }
+
+    public void setBaudRate(int baudRate) {
+        this.baudRate = baudRate;
+    }
+
+    public int getDataBits() {
+        return dataBits;
+    }
+
+    public void setDataBits(int dataBits) {
+        this.dataBits = dataBits;
+    }
+
+    public int getStopBits() {
+        return stopBits;
+    }
+
+    public void setStopBits(int stopBits) {
+        this.stopBits = stopBits;
+    }
+
+    public int getParity() {
+        return parity;
+    }
+
+    public void setParity(int parity) {
+        this.parity = parity;
+    }
+
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
+    public void setReadMode(ReadMode readMode) {
+        this.readMode = readMode;
+    }
+
+    public Framing getFraming() {
+        return framing;
+    }
+
+    public void setFraming(Framing framing) {
+        this.framing = framing;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    public void setFrameLength(int frameLength) {
+        this.frameLength = frameLength;
+    }
+
+    public int getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(int pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public int getPollTimeoutMs() {
+        return pollTimeoutMs;
+    }
+
+    public void setPollTimeoutMs(int pollTimeoutMs) {
+        this.pollTimeoutMs = pollTimeoutMs;
+    }
+
+    public int getPollPipelineDepth() {
+        return pollPipelineDepth;
+    }
+
+    public void setPollPipelineDepth(int pollPipelineDepth) {
+        this.pollPipelineDepth = pollPipelineDepth;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d %d%s%d (%s, %s) -> %s", portName, baudRate, dataBits,
+                parityLetter(), stopBits == SerialPort.TWO_STOP_BITS ? 2 : 1, readMode.name(),
+                framing == Framing.FIXED_LENGTH ? framing.name() + " " + frameLength : framing.name(), topic);
+    }
+
+    private String parityLetter() {
+        switch (parity) {
+            case SerialPort.EVEN_PARITY:
+                return "E";
+            case SerialPort.ODD_PARITY:
+                return "O";
+            case SerialPort.MARK_PARITY:
+                return "M";
+            case SerialPort.SPACE_PARITY:
+                return "S";
+            default:
+                return "N";
+        }
+    }
+}
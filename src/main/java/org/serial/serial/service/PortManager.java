@@ -0,0 +1,117 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.util.LogManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Runs any number of serial ports side by side, each with its own reader thread
+public class PortManager {
+    private final Map<String, PortChannel> channels = new LinkedHashMap<>();
+    private final LogManager logManager;
+    private volatile BiConsumer<PortChannel, WeightReading> readingHandler;
+
+    public PortManager() {
+        this.logManager = LogManager.getInstance();
+    }
+
+    public void setReadingHandler(BiConsumer<PortChannel, WeightReading> readingHandler) {
+        this.readingHandler = readingHandler;
+    }
+
+    public List<String> getAvailablePorts() {
+        return new SerialService().getAvailablePorts();
+    }
+
+    public synchronized PortChannel addPort(PortConfig config) throws Exception {
+        if (channels.containsKey(config.getPortName())) {
+            throw new Exception("Port already configured: " + config.getPortName());
+        }
+        if (config.getFraming() == Framing.FIXED_LENGTH && config.getFrameLength() <= 0) {
+            throw new Exception("Fixed-length framing needs a frame length: " + config.getPortName());
+        }
+        PortChannel channel = new PortChannel(config);
+        channels.put(config.getPortName(), channel);
+        return channel;
+    }
+
+    public synchronized void removePort(String portName) {
+        PortChannel channel = channels.remove(portName);
+        if (channel != null) {
+            channel.stop();
+        }
+    }
+
+    public synchronized List<PortChannel> getChannels() {
+        return new ArrayList<>(channels.values());
+    }
+
+    public synchronized boolean isEmpty() {
+        return channels.isEmpty();
+    }
+
+    // Opens every configured port. A port that fails to open is marked FAILED
+    // without affecting the others. Returns the number of ports running.
+    public synchronized int startAll() {
+        int started = 0;
+        for (PortChannel channel : channels.values()) {
+            try {
+                channel.start((source, reading) -> {
+                    BiConsumer<PortChannel, WeightReading> handler = readingHandler;
+                    if (handler != null) {
+                        handler.accept(source, reading);
+                    }
+                });
+                started++;
+                logManager.info("Serial monitoring started on port: " + channel.getConfig());
+            } catch (Exception e) {
+                logManager.error("Failed to start serial monitoring on " + channel.getPortName()
+                        + ": " + e.getMessage());
+            }
+        }
+        return started;
+    }
+
+    public synchronized void stopAll() {
+        for (PortChannel channel : channels.values()) {
+            channel.stop();
+        }
+    }
+
+    public synchronized int getRunningCount() {
+        int running = 0;
+        for (PortChannel channel : channels.values()) {
+            if (channel.getStatus() == PortChannel.Status.RUNNING) {
+                running++;
+            }
+        }
+        return running;
+    }
+
+    public synchronized long getTotalMessages() {
+        long total = 0;
+        for (PortChannel channel : channels.values()) {
+            total += channel.getMessageCount();
+        }
+        return total;
+    }
+
+    public synchronized double getAggregateFramesPerSecond() {
+        double total = 0;
+        for (PortChannel channel : channels.values()) {
+            if (channel.getStatus() != PortChannel.Status.FAILED) {
+                total += channel.getSerialService().getFramesPerSecond();
+            }
+        }
+        return total;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("ports=%d, running=%d, messages=%d, aggregate rate=%.1f frames/s",
+                channels.size(), getRunningCount(), getTotalMessages(), getAggregateFramesPerSecond());
+    }
+}
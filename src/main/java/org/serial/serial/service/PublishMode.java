@@ -0,0 +1,19 @@
+package org.serial.serial.service;
+
+public enum PublishMode {
+    // Each publish waits for its own PUBACK before the next one is sent
+    SYNC("Synchronous"),
+    // Publishes return once the message is in the in-flight window
+    ASYNC("Asynchronous (windowed)");
+
+    private final String label;
+
+    PublishMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
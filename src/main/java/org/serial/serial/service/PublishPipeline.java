@@ -0,0 +1,335 @@
+package org.serial.serial.service;
+
+import org.serial.serial.store.Outbox;
+import org.serial.serial.util.LogManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded hand-off between the serial reader and the MQTT client: producers enqueue and
+// return (unless the policy is BLOCK), dedicated publisher threads drain the queue.
+public class PublishPipeline implements MessageSink {
+    public static final int DEFAULT_CAPACITY = 1000;
+    private static final long DRAIN_TIMEOUT_MS = 5000;
+
+    private final MqttService mqttService;
+    private final LogManager logManager;
+    private final int capacity;
+    private final int publisherThreads;
+    private volatile OverflowPolicy overflowPolicy;
+    private volatile Outbox outbox;
+
+    private final ArrayDeque<OutboundMessage> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private ExecutorService publisherExecutor;
+    private volatile boolean running = false;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong storedCount = new AtomicLong();
+
+    public PublishPipeline(MqttService mqttService) {
+        this(mqttService, DEFAULT_CAPACITY, 1, OverflowPolicy.DROP_OLDEST);
+    }
+
+    public PublishPipeline(MqttService mqttService, int capacity, int publisherThreads,
+                           OverflowPolicy overflowPolicy) {
+        this.mqttService = mqttService;
+        this.logManager = LogManager.getInstance();
+        this.capacity = capacity;
+        this.publisherThreads = publisherThreads;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    // Messages that cannot be published are kept here for later replay
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        publisherExecutor = Executors.newFixedThreadPool(publisherThreads, r -> {
+            Thread thread = new Thread(r, "mqtt-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < publisherThreads; i++) {
+            publisherExecutor.submit(this::publishLoop);
+        }
+    }
+
+    // Stops accepting work, lets the publishers drain what is queued and waits for them
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        publisherExecutor.shutdown();
+        try {
+            if (!publisherExecutor.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                publisherExecutor.shutdownNow();
+                logManager.warn("Publish pipeline stopped with " + getQueueDepth() + " messages still queued");
+            }
+            if (!mqttService.awaitDeliveries(DRAIN_TIMEOUT_MS)) {
+                logManager.warn("Publish pipeline stopped with " + mqttService.getInflightCount()
+                        + " messages still in flight");
+            }
+        } catch (InterruptedException e) {
+            publisherExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean submit(String topic, String payload) {
+        return submit(topic, payload.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    // Returns false if the pipeline is not running or the message was rejected.
+    // arrivalNanos is when the (oldest) reading arrived on the serial port, 0 if unknown.
+    // The payload array is handed over and must not be modified afterwards.
+    @Override
+    public boolean submit(String topic, byte[] payload, long arrivalNanos) {
+        OutboundMessage message = new OutboundMessage(topic, payload, arrivalNanos);
+
+        lock.lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            submittedCount.incrementAndGet();
+
+            if (queue.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        while (queue.size() >= capacity && running) {
+                            notFull.await();
+                        }
+                        if (!running) {
+                            droppedCount.incrementAndGet();
+                            return false;
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        queue.pollFirst();
+                        droppedCount.incrementAndGet();
+                        break;
+                    case COALESCE_LATEST:
+                        if (removeLatestForTopic(topic)) {
+                            coalescedCount.incrementAndGet();
+                        } else {
+                            queue.pollFirst();
+                            droppedCount.incrementAndGet();
+                        }
+                        break;
+                }
+            }
+
+            queue.addLast(message);
+            notEmpty.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedCount.incrementAndGet();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean removeLatestForTopic(String topic) {
+        Iterator<OutboundMessage> iterator = queue.descendingIterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().topic.equals(topic)) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private OutboundMessage take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty()) {
+                if (!running) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            OutboundMessage message = queue.pollFirst();
+            notFull.signal();
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publishLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            OutboundMessage message;
+            try {
+                message = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (message == null) {
+                break;
+            }
+            publish(message);
+        }
+    }
+
+    private void publish(OutboundMessage message) {
+        if (!mqttService.isConnected()) {
+            storeForLater(message);
+            return;
+        }
+
+        try {
+            CompletableFuture<Void> delivery = mqttService.publishAsync(message.topic, message.payload,
+                    message.arrivalNanos);
+            delivery.whenComplete((result, error) -> {
+                if (error == null) {
+                    publishedCount.incrementAndGet();
+                    if (logManager.isDebugEnabled()) {
+                        logManager.debug("Published to MQTT: " + new String(message.payload, StandardCharsets.UTF_8));
+                    }
+                } else {
+                    logManager.error("Failed to publish to MQTT: " + error.getMessage());
+                    storeForLater(message);
+                }
+            });
+
+            if (mqttService.getPublishMode() == PublishMode.SYNC) {
+                // Outcome is already counted by the completion handler
+                delivery.exceptionally(error -> null).join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            storeForLater(message);
+        } catch (Exception ex) {
+            logManager.error("Failed to publish to MQTT: " + ex.getMessage());
+            storeForLater(message);
+        }
+    }
+
+    private void storeForLater(OutboundMessage message) {
+        Outbox target = outbox;
+        if (target == null) {
+            failedCount.incrementAndGet();
+            return;
+        }
+
+        try {
+            target.append(message.topic, message.payload);
+            storedCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            logManager.error("Failed to store message in outbox: " + e.getMessage());
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // How long the oldest queued message has been waiting, in milliseconds
+    public long getLagMillis() {
+        lock.lock();
+        try {
+            OutboundMessage oldest = queue.peekFirst();
+            return oldest != null ? (System.nanoTime() - oldest.queuedNanos) / 1_000_000 : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public MqttService getMqttService() {
+        return mqttService;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getStoredCount() {
+        return storedCount.get();
+    }
+
+    public String getStatsSummary() {
+        return String.format("policy=%s, mode=%s, submitted=%d, published=%d, dropped=%d, coalesced=%d, "
+                        + "stored=%d, failed=%d, queued=%d, inflight=%d, lag=%d ms",
+                overflowPolicy.name(), mqttService.getPublishMode().name(), getSubmittedCount(),
+                getPublishedCount(), getDroppedCount(), getCoalescedCount(), getStoredCount(),
+                getFailedCount(), getQueueDepth(), mqttService.getInflightCount(), getLagMillis());
+    }
+
+    private static final class OutboundMessage {
+        private final String topic;
+        private final byte[] payload;
+        private final long arrivalNanos;
+        private final long queuedNanos = System.nanoTime();
+
+        private OutboundMessage(String topic, byte[] payload, long arrivalNanos) {
+            this.topic = topic;
+            this.payload = payload;
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+}
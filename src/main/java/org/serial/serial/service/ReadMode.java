@@ -0,0 +1,19 @@
+package org.serial.serial.service;
+
+public enum ReadMode {
+    // Send a request and read its answer, paced by PollScheduler (indicators that only answer on request)
+    POLLING("Request / Response"),
+    // Block on the port and frame bytes as soon as they arrive (continuously streaming indicators)
+    STREAMING("Continuous Stream");
+
+    private final String label;
+
+    ReadMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,283 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightUnit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-port statistics over time windows (count, min, max, mean, stddev, last) for
+// consumers that do not need every reading. Windows are driven by reading timestamps:
+// a tumbling window is reported when the first reading past its end arrives (or on
+// flush()), a sliding window at the first reading past each slide boundary; windows
+// without readings are not reported. Tumbling windows use running sums; sliding windows
+// keep their readings in a primitive ring of maxSamples entries, overwriting the oldest
+// when it is full. Only valid readings count, and a change of unit or resolution starts
+// a new window.
+public class ReadingAggregator {
+    public static final long DEFAULT_WINDOW_MS = 10_000;
+    public static final long DEFAULT_SLIDE_MS = 1_000;
+    public static final int DEFAULT_MAX_SAMPLES = 4096;
+    public static final String TOPIC_SUFFIX = "/stats";
+
+    // Called on the reader thread of the port, or by flush()
+    public interface WindowListener {
+        void onWindow(String port, WindowStats stats);
+    }
+
+    private final WindowListener listener;
+    private volatile boolean enabled = false;
+    private volatile WindowMode mode = WindowMode.TUMBLING;
+    private volatile long windowMs = DEFAULT_WINDOW_MS;
+    private volatile long slideMs = DEFAULT_SLIDE_MS;
+    private volatile int maxSamples = DEFAULT_MAX_SAMPLES;
+
+    private final Map<String, PortWindow> windows = new ConcurrentHashMap<>();
+
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong overwrittenCount = new AtomicLong();
+
+    public ReadingAggregator(WindowListener listener) {
+        this.listener = listener;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Mode and sizes take effect for windows opened after reset()
+    public void setMode(WindowMode mode) {
+        this.mode = mode;
+    }
+
+    public WindowMode getMode() {
+        return mode;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setSlideMs(long slideMs) {
+        this.slideMs = slideMs;
+    }
+
+    public long getSlideMs() {
+        return slideMs;
+    }
+
+    public void setMaxSamples(int maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    // Called on the port's reader thread
+    public void add(String port, WeightReading reading) {
+        if (!enabled || !reading.isValid()) {
+            return;
+        }
+        PortWindow window = windows.computeIfAbsent(port,
+                p -> new PortWindow(p, mode, Math.max(1, windowMs), Math.max(1, slideMs), maxSamples));
+        window.add(reading);
+    }
+
+    // Reports the open tumbling windows; call once the ports are stopped
+    public void flush() {
+        for (PortWindow window : windows.values()) {
+            window.flush();
+        }
+    }
+
+    public void reset() {
+        windows.clear();
+    }
+
+    public long getWindowCount() {
+        return windowCount.get();
+    }
+
+    public long getOverwrittenCount() {
+        return overwrittenCount.get();
+    }
+
+    public String getStatsSummary() {
+        return String.format("enabled=%s, mode=%s, window=%d ms, slide=%d ms, windows=%d, overwritten=%d",
+                enabled, mode.name(), windowMs, slideMs, getWindowCount(), getOverwrittenCount());
+    }
+
+    private final class PortWindow {
+        private final String port;
+        private final WindowMode mode;
+        private final long windowMs;
+        private final long slideMs;
+        private final WindowStats stats = new WindowStats();
+
+        private int decimals = -1;
+        private WeightUnit unit;
+        private long last;
+
+        // Tumbling: running sums of the open window (Welford for the variance)
+        private long windowStart;
+        private long windowEnd = Long.MIN_VALUE;
+        private int count;
+        private long min;
+        private long max;
+        private double mean;
+        private double m2;
+
+        // Sliding: ring of the readings inside the window
+        private final long[] times;
+        private final long[] values;
+        private int head;
+        private int size;
+        private long nextEmit = Long.MIN_VALUE;
+
+        private PortWindow(String port, WindowMode mode, long windowMs, long slideMs, int maxSamples) {
+            this.port = port;
+            this.mode = mode;
+            this.windowMs = windowMs;
+            this.slideMs = slideMs;
+            int capacity = mode == WindowMode.SLIDING ? Math.max(1, maxSamples) : 0;
+            this.times = new long[capacity];
+            this.values = new long[capacity];
+        }
+
+        private synchronized void add(WeightReading reading) {
+            long now = reading.getTimestampMillis();
+            boolean dimensionChanged = decimals >= 0
+                    && (reading.getDecimals() != decimals || reading.getUnit() != unit);
+
+            if (mode == WindowMode.TUMBLING) {
+                if (count > 0 && (now >= windowEnd || dimensionChanged)) {
+                    emitTumbling(dimensionChanged ? now : windowEnd);
+                }
+                if (count == 0) {
+                    windowStart = Math.floorDiv(now, windowMs) * windowMs;
+                    windowEnd = windowStart + windowMs;
+                }
+            } else {
+                if (nextEmit != Long.MIN_VALUE && now >= nextEmit) {
+                    emitSliding(nextEmit);
+                } else if (dimensionChanged) {
+                    // Reported up to the change, as a tumbling window would be
+                    emitSliding(now);
+                }
+                if (dimensionChanged) {
+                    size = 0;
+                }
+                if (now >= nextEmit) {
+                    nextEmit = Math.floorDiv(now, slideMs) * slideMs + slideMs;
+                }
+            }
+
+            decimals = reading.getDecimals();
+            unit = reading.getUnit();
+            last = reading.getValue();
+            if (mode == WindowMode.TUMBLING) {
+                accumulate(reading.getValue());
+            } else {
+                push(now, reading.getValue());
+            }
+        }
+
+        private void accumulate(long value) {
+            if (count == 0) {
+                min = value;
+                max = value;
+                mean = 0;
+                m2 = 0;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        private void push(long time, long value) {
+            int tail = (head + size) % times.length;
+            times[tail] = time;
+            values[tail] = value;
+            if (size == times.length) {
+                head = (head + 1) % times.length;
+                overwrittenCount.incrementAndGet();
+            } else {
+                size++;
+            }
+        }
+
+        private synchronized void flush() {
+            if (mode == WindowMode.TUMBLING && count > 0) {
+                emitTumbling(windowEnd);
+            }
+        }
+
+        private void emitTumbling(long end) {
+            double scale = Math.pow(10, decimals);
+            double stddev = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+            stats.set(WindowMode.TUMBLING, windowStart, end, count, min, max, last, decimals, unit,
+                    mean / scale, stddev / scale);
+            count = 0;
+            emit();
+        }
+
+        // Aggregates the readings in [end - windowMs, end) in two passes over the ring
+        private void emitSliding(long end) {
+            long start = end - windowMs;
+            while (size > 0 && times[head] < start) {
+                head = (head + 1) % times.length;
+                size--;
+            }
+            int inWindow = 0;
+            long windowMin = Long.MAX_VALUE;
+            long windowMax = Long.MIN_VALUE;
+            long windowLast = 0;
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % times.length;
+                if (times[index] >= end) {
+                    break;
+                }
+                long value = values[index];
+                windowMin = Math.min(windowMin, value);
+                windowMax = Math.max(windowMax, value);
+                windowLast = value;
+                sum += value;
+                inWindow++;
+            }
+            if (inWindow == 0) {
+                return;
+            }
+            double windowMean = sum / inWindow;
+            double squares = 0;
+            for (int i = 0; i < inWindow; i++) {
+                double delta = values[(head + i) % times.length] - windowMean;
+                squares += delta * delta;
+            }
+            double scale = Math.pow(10, decimals);
+            double stddev = inWindow > 1 ? Math.sqrt(squares / (inWindow - 1)) : 0;
+            stats.set(WindowMode.SLIDING, start, end, inWindow, windowMin, windowMax, windowLast, decimals, unit,
+                    windowMean / scale, stddev / scale);
+            emit();
+        }
+
+        private void emit() {
+            windowCount.incrementAndGet();
+            listener.onWindow(port, stats);
+        }
+    }
+}
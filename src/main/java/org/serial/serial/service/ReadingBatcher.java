@@ -0,0 +1,244 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightReading;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Optional stage in front of the publish pipeline: collects the readings of a topic
+// and publishes them as one payload (JSON array, CBOR array or compressed series) once
+// the batch is full (count or bytes) or its time window has elapsed. stop() flushes
+// every open batch before returning. Closed batches are handed to the sink under the
+// lock, so the timer and the reader threads cannot reorder the batches of a topic.
+public class ReadingBatcher {
+    public static final int DEFAULT_MAX_MESSAGES = 50;
+    public static final long DEFAULT_MAX_DELAY_MS = 1000;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+    private final MessageSink sink;
+    private volatile boolean enabled = false;
+    private volatile int maxMessages = DEFAULT_MAX_MESSAGES;
+    private volatile long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+    private volatile int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+    private volatile PayloadFormat payloadFormat = PayloadFormat.JSON;
+
+    private final Map<String, Batch> batches = new HashMap<>();
+    // Single-reading series when batching is off, one per reader thread
+    private final ThreadLocal<SeriesEncoder> singleSeries = ThreadLocal.withInitial(SeriesEncoder::new);
+    private ScheduledExecutorService scheduler;
+    private boolean running = false;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedReadings = new AtomicLong();
+
+    public ReadingBatcher(MessageSink sink) {
+        this.sink = sink;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setMaxMessages(int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public void setMaxDelayMs(long maxDelayMs) {
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    // Must match the encoding of the submitted readings
+    public void setPayloadFormat(PayloadFormat payloadFormat) {
+        this.payloadFormat = payloadFormat;
+    }
+
+    public PayloadFormat getPayloadFormat() {
+        return payloadFormat;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "batch-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Flushes every open batch into the pipeline, then stops the window timer
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Map.Entry<String, Batch> entry : batches.entrySet()) {
+            Batch batch = entry.getValue();
+            if (batch.count > 0) {
+                long arrivalNanos = batch.firstArrivalNanos;
+                sink.submit(entry.getKey(), batch.close(), arrivalNanos);
+            }
+        }
+        batches.clear();
+        scheduler.shutdownNow();
+    }
+
+    // reading is one encoded reading; it is copied when batching is enabled
+    // and handed to the pipeline as-is otherwise
+    public boolean submit(String topic, byte[] reading, long arrivalNanos) {
+        if (!enabled) {
+            return sink.submit(topic, reading, arrivalNanos);
+        }
+        return append(topic, reading, null, arrivalNanos);
+    }
+
+    // For the SERIES format, which compresses the readings themselves
+    public boolean submit(String topic, WeightReading reading, long arrivalNanos) {
+        if (!enabled) {
+            SeriesEncoder series = singleSeries.get();
+            series.reset();
+            series.add(reading);
+            return sink.submit(topic, series.toByteArray(), arrivalNanos);
+        }
+        return append(topic, null, reading, arrivalNanos);
+    }
+
+    // Exactly one of encoded and reading is set
+    private synchronized boolean append(String topic, byte[] encoded, WeightReading reading, long arrivalNanos) {
+        if (!running) {
+            return false;
+        }
+
+        boolean accepted = true;
+        Batch batch = batches.computeIfAbsent(topic, t -> new Batch());
+        // Encoded size is only known for JSON/CBOR; a series entry is a few bytes
+        int readingBytes = encoded != null ? encoded.length : 16;
+
+        // A reading that would push the batch over the byte limit, or change the unit
+        // of a series, closes the current batch first
+        if (batch.count > 0 && (batch.size() + readingBytes + 1 > maxBatchBytes
+                || (reading != null && !batch.series.accepts(reading)))) {
+            long overflowArrival = batch.firstArrivalNanos;
+            accepted = sink.submit(topic, batch.close(), overflowArrival);
+        }
+
+        if (batch.count == 0) {
+            long generation = batch.generation;
+            scheduler.schedule(() -> flushExpired(topic, generation), maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+        if (encoded != null) {
+            batch.add(encoded, arrivalNanos);
+        } else {
+            batch.add(reading, arrivalNanos);
+        }
+
+        if (batch.count >= maxMessages || batch.size() >= maxBatchBytes) {
+            long flushedArrival = batch.firstArrivalNanos;
+            accepted &= sink.submit(topic, batch.close(), flushedArrival);
+        }
+        return accepted;
+    }
+
+    private synchronized void flushExpired(String topic, long generation) {
+        Batch batch = batches.get(topic);
+        // The batch this timer was started for may already have been flushed by count or size
+        if (!running || batch == null || batch.generation != generation || batch.count == 0) {
+            return;
+        }
+        long arrivalNanos = batch.firstArrivalNanos;
+        sink.submit(topic, batch.close(), arrivalNanos);
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getBatchedReadings() {
+        return batchedReadings.get();
+    }
+
+    public String getStatsSummary() {
+        long batchesSent = getBatchCount();
+        return String.format("enabled=%s, batches=%d, readings=%d, avg size=%.1f",
+                enabled, batchesSent, getBatchedReadings(),
+                batchesSent > 0 ? getBatchedReadings() / (double) batchesSent : 0);
+    }
+
+    private final class Batch {
+        private final ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        private final SeriesEncoder series = new SeriesEncoder();
+        private int count;
+        private long generation;
+        private long firstArrivalNanos;
+        private PayloadFormat format;
+
+        private void add(byte[] reading, long arrivalNanos) {
+            if (count > 0) {
+                payload.writeBytes(format.getBatchSeparator());
+            } else {
+                format = payloadFormat;
+                payload.writeBytes(format.getBatchStart());
+                firstArrivalNanos = arrivalNanos;
+            }
+            payload.write(reading, 0, reading.length);
+            count++;
+        }
+
+        private void add(WeightReading reading, long arrivalNanos) {
+            if (count == 0) {
+                format = PayloadFormat.SERIES;
+                firstArrivalNanos = arrivalNanos;
+            }
+            series.add(reading);
+            count++;
+        }
+
+        private int size() {
+            return format == PayloadFormat.SERIES ? series.size() : payload.size() + 1;
+        }
+
+        private byte[] close() {
+            byte[] result;
+            if (format == PayloadFormat.SERIES) {
+                result = series.toByteArray();
+                series.reset();
+            } else {
+                payload.writeBytes(format.getBatchEnd());
+                result = payload.toByteArray();
+                payload.reset();
+            }
+            batchCount.incrementAndGet();
+            batchedReadings.addAndGet(count);
+            count = 0;
+            generation++;
+            return result;
+        }
+    }
+}
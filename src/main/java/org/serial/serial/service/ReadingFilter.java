@@ -0,0 +1,143 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightReading;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Suppresses readings that carry no news: a reading is forwarded when it is the first one
+// for its port, when the weight moved by more than the deadband, when the stability state
+// changed, or when nothing was forwarded for the heartbeat interval.
+public class ReadingFilter {
+    public static final double DEFAULT_DEADBAND = 0.0;
+    public static final long DEFAULT_HEARTBEAT_MS = 30_000;
+
+    private volatile boolean enabled = false;
+    private volatile long heartbeatMs = DEFAULT_HEARTBEAT_MS;
+    // Deadband pre-scaled to the fixed-point value for each possible number of decimals
+    private volatile long[] scaledDeadband = scale(DEFAULT_DEADBAND);
+    private volatile double deadband = DEFAULT_DEADBAND;
+
+    private final Map<String, PortState> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong forwardedCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong heartbeatCount = new AtomicLong();
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Deadband in the indicator's own unit, e.g. 0.05 for 50 g on a kg scale
+    public void setDeadband(double deadband) {
+        this.deadband = deadband;
+        this.scaledDeadband = scale(deadband);
+    }
+
+    public double getDeadband() {
+        return deadband;
+    }
+
+    public void setHeartbeatMs(long heartbeatMs) {
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public long getHeartbeatMs() {
+        return heartbeatMs;
+    }
+
+    // Called on the port's reader thread; returns true if the reading should be published
+    public boolean accept(String port, WeightReading reading) {
+        if (!enabled || !reading.isValid()) {
+            forwardedCount.incrementAndGet();
+            return true;
+        }
+
+        PortState state = states.computeIfAbsent(port, p -> new PortState());
+        long now = reading.getTimestampMillis();
+
+        boolean forward;
+        if (!state.initialized || state.stability != reading.getStability()) {
+            forward = true;
+        } else {
+            long previous = state.decimals == reading.getDecimals()
+                    ? state.value
+                    : rescale(state.value, state.decimals, reading.getDecimals());
+            forward = Math.abs(reading.getValue() - previous) > scaledDeadband[reading.getDecimals()];
+        }
+
+        if (!forward && now - state.lastForwardMillis >= heartbeatMs) {
+            heartbeatCount.incrementAndGet();
+            forward = true;
+        }
+
+        if (forward) {
+            state.initialized = true;
+            state.value = reading.getValue();
+            state.decimals = reading.getDecimals();
+            state.stability = reading.getStability();
+            state.lastForwardMillis = now;
+            forwardedCount.incrementAndGet();
+        } else {
+            suppressedCount.incrementAndGet();
+        }
+        return forward;
+    }
+
+    public void reset() {
+        states.clear();
+    }
+
+    private static long rescale(long value, int fromDecimals, int toDecimals) {
+        long result = value;
+        for (int i = fromDecimals; i < toDecimals; i++) {
+            result *= 10;
+        }
+        for (int i = toDecimals; i < fromDecimals; i++) {
+            result /= 10;
+        }
+        return result;
+    }
+
+    private static long[] scale(double deadband) {
+        long[] scaled = new long[WeightReading.MAX_DECIMALS + 1];
+        double factor = 1;
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = Math.round(deadband * factor);
+            factor *= 10;
+        }
+        return scaled;
+    }
+
+    public long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    public long getHeartbeatCount() {
+        return heartbeatCount.get();
+    }
+
+    public String getStatsSummary() {
+        return String.format("enabled=%s, deadband=%s, heartbeat=%d ms, forwarded=%d, suppressed=%d, heartbeats=%d",
+                enabled, deadband, heartbeatMs, getForwardedCount(), getSuppressedCount(), getHeartbeatCount());
+    }
+
+    // Only touched by the reader thread of its port
+    private static final class PortState {
+        private boolean initialized;
+        private long value;
+        private int decimals;
+        private Stability stability;
+        private long lastForwardMillis;
+    }
+}
@@ -1,42 +1,65 @@
 package org.serial.serial.service;
 
-
 import com.fazecast.jSerialComm.SerialPort;
-import java.util.ArrayList;
+import org.serial.serial.metrics.BridgeMetrics;
+import org.serial.serial.model.WeightReading;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 public class SerialService {
-    private SerialPort serialPort;
+    private static final byte[] POLL_REQUEST = {'\r', '\n'};
+    // How often a pipelining poller looks for answers while its next request is not yet due
+    private static final long PIPELINE_CHECK_NANOS = 1_000_000;
+
+    private SerialTransport transport;
     private ExecutorService executorService;
     private Consumer<String> dataCallback;
+    private Consumer<WeightReading> readingCallback;
+    private final WeightParser weightParser = new WeightParser();
+    private final BridgeMetrics metrics = BridgeMetrics.getInstance();
     private volatile boolean isReading = false;
+    private ReadMode readMode = ReadMode.POLLING;
+    private int pollIntervalMs = PollScheduler.DEFAULT_MIN_INTERVAL_MS;
+    private int pollTimeoutMs = PollScheduler.DEFAULT_TIMEOUT_MS;
+    private int pollPipelineDepth = PollScheduler.DEFAULT_PIPELINE_DEPTH;
+    // Null in streaming mode
+    private volatile PollScheduler pollScheduler;
+    private Framing framing = Framing.LINE;
+    private int frameLength = 0;
+    private volatile FrameDecoder frameDecoder;
+    private long frameStartNanos;
+    private long chunkArrivalNanos;
+
+    // Throughput and latency counters, written only by the reader thread
+    private volatile long framesRead;
+    private volatile long bytesRead;
+    private volatile long latencyTotalNanos;
+    private volatile long latencyMaxNanos;
+    private volatile long readingStartNanos;
+    private volatile long readingStopNanos;
 
     public List<String> getAvailablePorts() {
-        List<String> ports = new ArrayList<>();
-        SerialPort[] availablePorts = SerialPort.getCommPorts();
+        return SerialTransport.availablePorts();
+    }
 
-        for (SerialPort port : availablePorts) {
-            ports.add(port.getSystemPortName());
-        }
+    public void connect(String portName, int baudRate) throws Exception {
+        connect(portName, baudRate, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+    }
 
-        return ports;
+    public void connect(String portName, int baudRate, int dataBits, int stopBits, int parity) throws Exception {
+        connect(SerialTransport.forPort(portName), baudRate, dataBits, stopBits, parity);
     }
 
-    public void connect(String portName, int baudRate) throws Exception {
-        serialPort = SerialPort.getCommPort(portName);
-        serialPort.setBaudRate(baudRate);
-        serialPort.setNumDataBits(8);
-        serialPort.setNumStopBits(1);
-        serialPort.setParity(SerialPort.NO_PARITY);
-        serialPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 100, 0);
-
-        if (!serialPort.openPort()) {
-            throw new Exception("Failed to open port: " + portName);
+    public void connect(SerialTransport transport, int baudRate, int dataBits, int stopBits, int parity)
+            throws Exception {
+        if (framing == Framing.FIXED_LENGTH && frameLength <= 0) {
+            throw new Exception("Fixed-length framing needs a frame length");
         }
-
+        this.transport = transport;
+        transport.open(baudRate, dataBits, stopBits, parity);
         startReading();
     }
 
@@ -47,8 +70,12 @@ public class SerialService {
             executorService.shutdownNow();
         }
 
-        if (serialPort != null && serialPort.isOpen()) {
-            serialPort.closePort();
+        if (transport != null && transport.isOpen()) {
+            transport.close();
+        }
+
+        if (readingStartNanos != 0 && readingStopNanos == 0) {
+            readingStopNanos = System.nanoTime();
         }
     }
 
@@ -56,42 +83,108 @@ public class SerialService {
         this.dataCallback = callback;
     }
 
+    // Receives every frame parsed into a structured reading (invalid readings keep the raw text)
+    public void setReadingCallback(Consumer<WeightReading> callback) {
+        this.readingCallback = callback;
+    }
+
+    public void setReadMode(ReadMode readMode) {
+        this.readMode = readMode;
+    }
+
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
+    // Shortest interval between poll requests; the actual pace follows the device's answers
+    public void setPollIntervalMs(int pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public void setPollTimeoutMs(int pollTimeoutMs) {
+        this.pollTimeoutMs = pollTimeoutMs;
+    }
+
+    // Requests outstanding at once; above 1 only for indicators that queue requests
+    public void setPollPipelineDepth(int pollPipelineDepth) {
+        this.pollPipelineDepth = pollPipelineDepth;
+    }
+
+    public PollScheduler getPollScheduler() {
+        return pollScheduler;
+    }
+
+    public void setFraming(Framing framing) {
+        this.framing = framing;
+    }
+
+    public Framing getFraming() {
+        return framing;
+    }
+
+    // Frame size for FIXED_LENGTH framing (required), maximum frame size otherwise
+    // (0 for FrameDecoder.DEFAULT_MAX_FRAME_LENGTH)
+    public void setFrameLength(int frameLength) {
+        this.frameLength = frameLength;
+    }
+
     private void startReading() {
         isReading = true;
-        executorService = Executors.newSingleThreadExecutor();
+        resetStats();
+        final SerialTransport link = transport;
+        String threadName = "serial-" + link.getName();
+        executorService = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final ReadMode mode = readMode;
+        frameDecoder = new FrameDecoder(framing, frameLength > 0 ? frameLength : FrameDecoder.DEFAULT_MAX_FRAME_LENGTH);
+        final FrameDecoder decoder = frameDecoder;
+        final FrameDecoder.FrameHandler frameHandler = this::dispatchFrame;
+        pollScheduler = mode == ReadMode.POLLING
+                ? new PollScheduler(pollIntervalMs, pollTimeoutMs, pollPipelineDepth) : null;
+        final PollScheduler scheduler = pollScheduler;
 
         executorService.submit(() -> {
             byte[] readBuffer = new byte[1024];
-            StringBuilder messageBuilder = new StringBuilder();
 
             while (isReading && !Thread.currentThread().isInterrupted()) {
                 try {
-                    // Send request for reading (equivalent to Python's ser.write(b"\r\n"))
-                    serialPort.writeBytes(new byte[]{'\r', '\n'}, 2);
-
-                    // Wait a bit for response
-                    Thread.sleep(300);
+                    if (scheduler != null) {
+                        long now = System.nanoTime();
+                        scheduler.checkTimeout(now);
+                        long waitNanos = scheduler.nanosUntilNextRequest(now);
+                        if (waitNanos == 0) {
+                            // Send request for reading (equivalent to Python's ser.write(b"\r\n"))
+                            link.write(POLL_REQUEST, POLL_REQUEST.length);
+                            scheduler.onRequestSent(System.nanoTime());
+                            continue;
+                        } else if (scheduler.getOutstanding() == 0 && !scheduler.isAwaitingLateAnswers(now)) {
+                            // Nothing to wait for on the port until the next request is due
+                            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                            continue;
+                        } else if (waitNanos != Long.MAX_VALUE && link.available() == 0) {
+                            // Pipelining: a blocking read would hold back the next request
+                            long sleepNanos = Math.min(waitNanos, PIPELINE_CHECK_NANOS);
+                            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                            continue;
+                        }
+                    }
 
-                    // Read available data
-                    int numRead = serialPort.readBytes(readBuffer, readBuffer.length);
+                    // Read available data; blocks until bytes arrive or the port's read timeout
+                    int numRead = link.read(readBuffer, 0, readBuffer.length);
 
                     if (numRead > 0) {
-                        String data = new String(readBuffer, 0, numRead);
-
-                        // Process data character by character
-                        for (char c : data.toCharArray()) {
-                            if (c == '\n' || c == '\r') {
-                                if (messageBuilder.length() > 0) {
-                                    String message = messageBuilder.toString().trim();
-                                    if (!message.isEmpty() && dataCallback != null) {
-                                        dataCallback.accept(message);
-                                    }
-                                    messageBuilder.setLength(0);
-                                }
-                            } else if (c >= 32 && c < 127) { // Printable ASCII characters
-                                messageBuilder.append(c);
-                            }
+                        bytesRead += numRead;
+                        metrics.recordSerialRead(numRead);
+                        long arrivalNanos = System.nanoTime();
+                        if (decoder.getPendingLength() == 0) {
+                            frameStartNanos = arrivalNanos;
                         }
+                        chunkArrivalNanos = arrivalNanos;
+                        decoder.decode(readBuffer, 0, numRead, frameHandler);
                     }
 
                 } catch (InterruptedException e) {
@@ -99,6 +192,7 @@ public class SerialService {
                     break;
                 } catch (Exception e) {
                     if (isReading) {
+                        metrics.recordSerialReadError();
                         System.err.println("Error reading serial data: " + e.getMessage());
                     }
                 }
@@ -106,7 +200,103 @@ public class SerialService {
         });
     }
 
+    // Runs on the reader thread for every complete frame; the raw String and the
+    // reading are the only allocations
+    private void dispatchFrame(byte[] buffer, int offset, int length) {
+        PollScheduler scheduler = pollScheduler;
+        if (scheduler != null) {
+            long requestNanos = scheduler.onResponse(System.nanoTime());
+            if (requestNanos != 0) {
+                frameStartNanos = requestNanos;
+            }
+        }
+        Consumer<String> callback = dataCallback;
+        Consumer<WeightReading> parsedCallback = readingCallback;
+        if (callback != null || parsedCallback != null) {
+            String raw = new String(buffer, offset, length, StandardCharsets.US_ASCII);
+            if (callback != null) {
+                callback.accept(raw);
+            }
+            if (parsedCallback != null) {
+                WeightReading reading = weightParser.parse(buffer, offset, length, System.currentTimeMillis(),
+                        frameStartNanos, raw);
+                if (!reading.isValid()) {
+                    metrics.recordParseFailure();
+                }
+                parsedCallback.accept(reading);
+            }
+            metrics.recordSerialFrame();
+            recordFrame(frameStartNanos);
+        }
+        // Any following frame in this chunk started no earlier than the chunk arrived
+        frameStartNanos = chunkArrivalNanos;
+    }
+
+    private void resetStats() {
+        framesRead = 0;
+        bytesRead = 0;
+        latencyTotalNanos = 0;
+        latencyMaxNanos = 0;
+        readingStartNanos = System.nanoTime();
+        readingStopNanos = 0;
+    }
+
+    // Latency is measured from the poll request (polling) or from the arrival of the
+    // frame's first byte (streaming) until the frame has been handed to the callback
+    private void recordFrame(long frameStartNanos) {
+        long latency = System.nanoTime() - frameStartNanos;
+        framesRead++;
+        latencyTotalNanos += latency;
+        if (latency > latencyMaxNanos) {
+            latencyMaxNanos = latency;
+        }
+    }
+
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    public long getFrameOverflowCount() {
+        FrameDecoder decoder = frameDecoder;
+        return decoder != null ? decoder.getOverflowCount() : 0;
+    }
+
+    public long getParseFailureCount() {
+        return weightParser.getFailureCount();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public double getFramesPerSecond() {
+        if (readingStartNanos == 0) {
+            return 0;
+        }
+        long end = readingStopNanos != 0 ? readingStopNanos : System.nanoTime();
+        double seconds = (end - readingStartNanos) / 1_000_000_000.0;
+        return seconds > 0 ? framesRead / seconds : 0;
+    }
+
+    public double getAverageLatencyMillis() {
+        long frames = framesRead;
+        return frames > 0 ? latencyTotalNanos / (double) frames / 1_000_000.0 : 0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return latencyMaxNanos / 1_000_000.0;
+    }
+
+    public String getStatsSummary() {
+        String summary = String.format("mode=%s, frames=%d, bytes=%d, parse failures=%d, rate=%.1f frames/s, "
+                        + "latency avg=%.1f ms, max=%.1f ms",
+                readMode.name(), framesRead, bytesRead, getParseFailureCount(), getFramesPerSecond(),
+                getAverageLatencyMillis(), getMaxLatencyMillis());
+        PollScheduler scheduler = pollScheduler;
+        return scheduler != null ? summary + ", " + scheduler.getStatsSummary() : summary;
+    }
+
     public boolean isConnected() {
-        return serialPort != null && serialPort.isOpen();
+        return transport != null && transport.isOpen();
     }
 }
@@ -0,0 +1,37 @@
+package org.serial.serial.service;
+
+import java.util.List;
+
+// Byte link to one indicator. SerialService only frames and parses what read() returns,
+// so anything that can produce indicator bytes can stand in for a real port.
+public interface SerialTransport {
+    void open(int baudRate, int dataBits, int stopBits, int parity) throws Exception;
+
+    // Waits briefly for data and returns the number of bytes read, 0 if none arrived
+    int read(byte[] buffer, int offset, int length) throws Exception;
+
+    // Bytes that a read would return without waiting
+    int available() throws Exception;
+
+    void write(byte[] data, int length) throws Exception;
+
+    void close();
+
+    boolean isOpen();
+
+    String getName();
+
+    // "sim:..." names the replay simulator, anything else a system serial port
+    static SerialTransport forPort(String portName) throws Exception {
+        if (SimulatorTransport.isSimulatorPort(portName)) {
+            return SimulatorTransport.parse(portName);
+        }
+        return new JSerialCommTransport(portName);
+    }
+
+    static List<String> availablePorts() {
+        List<String> ports = JSerialCommTransport.availablePorts();
+        ports.add(SimulatorTransport.DEFAULT_PORT);
+        return ports;
+    }
+}
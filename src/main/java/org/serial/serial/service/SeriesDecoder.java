@@ -0,0 +1,108 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightType;
+import org.serial.serial.model.WeightUnit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a series written by SeriesEncoder back into readings. Decoded readings have no
+// arrival time and valid ones no raw text.
+public final class SeriesDecoder {
+    private final byte[] data;
+    private int position;
+
+    private SeriesDecoder(byte[] data) {
+        this.data = data;
+    }
+
+    public static List<WeightReading> decode(byte[] payload) {
+        return new SeriesDecoder(payload).readSeries();
+    }
+
+    private List<WeightReading> readSeries() {
+        if (readByte() != SeriesEncoder.MAGIC) {
+            throw new IllegalArgumentException("Not a reading series");
+        }
+        int version = readByte();
+        if (version != SeriesEncoder.VERSION) {
+            throw new IllegalArgumentException("Unsupported series version " + version);
+        }
+        long count = readVarint();
+        List<WeightReading> readings = new ArrayList<>((int) Math.min(count, 4096));
+        if (count == 0) {
+            return readings;
+        }
+
+        long timestamp = readVarint();
+        int decimals = readByte();
+        WeightUnit unit = WeightUnit.values()[readByte()];
+        long value = unZigZag(readVarint());
+        int status = readByte();
+        boolean dimensionKnown = status != SeriesEncoder.INVALID_STATUS;
+        readings.add(toReading(timestamp, value, decimals, unit, status));
+
+        long delta = 0;
+        for (long i = 1; i < count; i++) {
+            delta += unZigZag(readVarint());
+            timestamp += delta;
+            long valueField = readVarint();
+            value += unZigZag(valueField >>> 1);
+            if ((valueField & 1) != 0) {
+                status = readByte();
+                if (!dimensionKnown && status != SeriesEncoder.INVALID_STATUS) {
+                    decimals = readByte();
+                    unit = WeightUnit.values()[readByte()];
+                    dimensionKnown = true;
+                }
+            }
+            readings.add(toReading(timestamp, value, decimals, unit, status));
+        }
+        if (position != data.length) {
+            throw new IllegalArgumentException("Trailing bytes after series at " + position);
+        }
+        return readings;
+    }
+
+    private WeightReading toReading(long timestamp, long value, int decimals, WeightUnit unit, int status) {
+        if (status == SeriesEncoder.INVALID_STATUS) {
+            int rawLength = (int) readVarint();
+            require(rawLength);
+            String raw = new String(data, position, rawLength, StandardCharsets.UTF_8);
+            position += rawLength;
+            return WeightReading.invalid(timestamp, 0, raw);
+        }
+        return new WeightReading(timestamp, 0, value, decimals, unit, WeightType.values()[status >>> 4],
+                Stability.values()[status & 0x0F], "");
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long at " + position);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > data.length) {
+            throw new IllegalArgumentException("Truncated series at " + position);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightUnit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Compresses a run of readings from one port in the spirit of Gorilla time series:
+// timestamps as zig-zag varint delta-of-delta (one byte while the indicator keeps its
+// rhythm), weights as zig-zag varint deltas of the fixed-point value, and the status
+// byte only when it changes. All readings of a series share unit and decimals; use
+// accepts() to find out when a new series has to be started. Layout:
+//
+//   'W' version  varint count
+//   first:  varint timestamp  byte decimals  byte unit  zigzag value  byte status
+//   others: zigzag delta-of-delta timestamp
+//           varint (zigzag value delta << 1 | status follows)  [byte status]
+//   status: type << 4 | stability (enum ordinals); 0xFF = unparsable, followed by
+//           varint length and the raw UTF-8 text
+//
+// SeriesDecoder reads it back. Not thread-safe.
+public class SeriesEncoder {
+    public static final byte MAGIC = 'W';
+    public static final byte VERSION = 1;
+    static final int INVALID_STATUS = 0xFF;
+
+    private byte[] body = new byte[256];
+    private int length;
+    private int count;
+
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValue;
+    private int previousStatus;
+    private int decimals;
+    private WeightUnit unit;
+
+    public void reset() {
+        length = 0;
+        count = 0;
+        unit = null;
+        previousValue = 0;
+        previousDelta = 0;
+    }
+
+    // False when the reading's unit or resolution differs from the series
+    public boolean accepts(WeightReading reading) {
+        return count == 0 || !reading.isValid() || unit == null
+                || (reading.getUnit() == unit && reading.getDecimals() == decimals);
+    }
+
+    public void add(WeightReading reading) {
+        if (!accepts(reading)) {
+            throw new IllegalArgumentException("Reading does not match the series unit and decimals");
+        }
+        int status = status(reading);
+        long value = reading.isValid() ? reading.getValue() : previousValue;
+
+        if (count == 0) {
+            writeVarint(reading.getTimestampMillis());
+            writeDimension(reading);
+            writeVarint(zigZag(value));
+            writeStatus(status, reading);
+        } else {
+            long delta = reading.getTimestampMillis() - previousTimestamp;
+            writeVarint(zigZag(delta - previousDelta));
+            previousDelta = delta;
+
+            if (unit == null && reading.isValid()) {
+                // The series started with unparsable frames: the first real weight fixes the dimension
+                writeVarint(zigZag(value - previousValue) << 1 | 1);
+                writeStatus(status, reading);
+                writeDimension(reading);
+            } else {
+                boolean statusFollows = status != previousStatus || status == INVALID_STATUS;
+                writeVarint(zigZag(value - previousValue) << 1 | (statusFollows ? 1 : 0));
+                if (statusFollows) {
+                    writeStatus(status, reading);
+                }
+            }
+        }
+
+        previousTimestamp = reading.getTimestampMillis();
+        previousValue = value;
+        previousStatus = status;
+        count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // Encoded size if the series were closed now
+    public int size() {
+        return 2 + varintSize(count) + length;
+    }
+
+    public byte[] toByteArray() {
+        byte[] result = new byte[size()];
+        result[0] = MAGIC;
+        result[1] = VERSION;
+        int position = 2;
+        for (long rest = count; ; rest >>>= 7) {
+            if ((rest & ~0x7FL) == 0) {
+                result[position++] = (byte) rest;
+                break;
+            }
+            result[position++] = (byte) ((rest & 0x7F) | 0x80);
+        }
+        System.arraycopy(body, 0, result, position, length);
+        return result;
+    }
+
+    // Decimals and unit, written with the first reading that has them
+    private void writeDimension(WeightReading reading) {
+        if (reading.isValid()) {
+            decimals = reading.getDecimals();
+            unit = reading.getUnit();
+            writeByte(decimals);
+            writeByte(unit.ordinal());
+        } else {
+            writeByte(0);
+            writeByte(WeightUnit.UNKNOWN.ordinal());
+        }
+    }
+
+    private void writeStatus(int status, WeightReading reading) {
+        writeByte(status);
+        if (status == INVALID_STATUS) {
+            byte[] raw = reading.getRaw().getBytes(StandardCharsets.UTF_8);
+            writeVarint(raw.length);
+            ensureCapacity(raw.length);
+            System.arraycopy(raw, 0, body, length, raw.length);
+            length += raw.length;
+        }
+    }
+
+    static int status(WeightReading reading) {
+        if (!reading.isValid()) {
+            return INVALID_STATUS;
+        }
+        return reading.getType().ordinal() << 4 | reading.getStability().ordinal();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            body[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        body[length++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        body[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > body.length) {
+            body = Arrays.copyOf(body, Math.max(body.length * 2, length + extra));
+        }
+    }
+}
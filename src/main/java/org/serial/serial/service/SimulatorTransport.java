@@ -0,0 +1,489 @@
+package org.serial.serial.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Stands in for an indicator: replays a recorded capture or a synthetic weighing profile
+// at real time or N x speed, optionally with line noise, garbage and dropped links. The
+// port name selects the source and options, separated by ';':
+//   sim:synthetic;rate=50              synthetic load/unload cycles at 50 frames/s
+//   sim:captures/scale.txt;speed=10    a capture at ten times its recorded pace
+// Options:
+//   speed=N          time scale; 0 delivers frames as fast as they are read (default 1)
+//   rate=HZ          frames per second of the synthetic profile (default 10)
+//   noise=P          chance per byte of being replaced by a random byte
+//   garbage=P        chance per frame of a burst of random bytes in front of it
+//   disconnect=P     chance per frame that the link drops for disconnectMs (default 2000)
+//   seed=N           random seed, for repeatable runs
+//   loop=false       stop after one pass over a capture
+//   terminator=none  capture frames carry their own framing (default CRLF after each)
+//   respond=MS       answer each poll request with the next frame after MS instead of
+//                    streaming (a polled indicator; requests queue, so pipelining works)
+// A capture has one frame per line, "<milliseconds since start> <frame>", with \r \n \t
+// \\ and \xHH escapes in the frame; lines starting with # are comments.
+public class SimulatorTransport implements SerialTransport {
+    public static final String PREFIX = "sim:";
+    public static final String SYNTHETIC = "synthetic";
+    public static final String DEFAULT_PORT = PREFIX + SYNTHETIC;
+
+    private static final int READ_TIMEOUT_MS = 100;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] STABLE_GROSS = "ST,GS,".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MOTION_GROSS = "US,GS,".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KG_CRLF = "kg\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final long[] SYNTHETIC_LOADS = {12_500, 48_200, 150_750};
+    // Synthetic cycle in frames: empty, loading, stable load, unloading
+    private static final int EMPTY_FRAMES = 50;
+    private static final int RAMP_FRAMES = 20;
+    private static final int LOADED_FRAMES = 100;
+
+    private final String name;
+    private final String source;
+    private double speed = 1;
+    private double rate = 10;
+    private double noise;
+    private double garbage;
+    private double disconnect;
+    private long disconnectMs = 2000;
+    private boolean loop = true;
+    private boolean terminate = true;
+    // Negative: streaming
+    private double respondMs = -1;
+    private Random random = new Random();
+
+    private long[] captureOffsets;
+    private byte[][] captureFrames;
+    private long captureLoopMillis;
+
+    private volatile boolean open;
+    private long startNanos;
+    private long frameIndex;
+    private final byte[] pending = new byte[512];
+    private int pendingLength;
+    private int pendingPosition;
+    private boolean disconnectPending;
+    private long linkDownUntilNanos;
+    private long disconnectCount;
+    // Due times of the answers to pending poll requests, written and read by the reader thread
+    private final long[] answers = new long[64];
+    private int answerHead;
+    private int answerCount;
+
+    public SimulatorTransport(String name, String source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    public static boolean isSimulatorPort(String portName) {
+        return portName.regionMatches(true, 0, PREFIX, 0, PREFIX.length());
+    }
+
+    public static SimulatorTransport parse(String portName) throws Exception {
+        String[] parts = portName.substring(PREFIX.length()).split(";");
+        SimulatorTransport transport = new SimulatorTransport(portName, parts[0].trim());
+        for (int i = 1; i < parts.length; i++) {
+            String option = parts[i].trim();
+            int equals = option.indexOf('=');
+            if (equals < 0) {
+                throw new Exception("Simulator option without value: " + option);
+            }
+            String key = option.substring(0, equals).trim();
+            String value = option.substring(equals + 1).trim();
+            try {
+                switch (key) {
+                    case "speed":
+                        transport.setSpeed(Double.parseDouble(value));
+                        break;
+                    case "rate":
+                        transport.setRate(Double.parseDouble(value));
+                        break;
+                    case "noise":
+                        transport.setNoise(Double.parseDouble(value));
+                        break;
+                    case "garbage":
+                        transport.setGarbage(Double.parseDouble(value));
+                        break;
+                    case "disconnect":
+                        transport.setDisconnect(Double.parseDouble(value));
+                        break;
+                    case "disconnectMs":
+                        transport.setDisconnectMs(Long.parseLong(value));
+                        break;
+                    case "seed":
+                        transport.setSeed(Long.parseLong(value));
+                        break;
+                    case "loop":
+                        transport.setLoop(Boolean.parseBoolean(value));
+                        break;
+                    case "terminator":
+                        transport.setTerminate(!value.equalsIgnoreCase("none"));
+                        break;
+                    case "respond":
+                        transport.setRespondMs(Double.parseDouble(value));
+                        break;
+                    default:
+                        throw new Exception("Unknown simulator option: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new Exception("Invalid simulator option: " + option);
+            }
+        }
+        return transport;
+    }
+
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public void setNoise(double noise) {
+        this.noise = noise;
+    }
+
+    public void setGarbage(double garbage) {
+        this.garbage = garbage;
+    }
+
+    public void setDisconnect(double disconnect) {
+        this.disconnect = disconnect;
+    }
+
+    public void setDisconnectMs(long disconnectMs) {
+        this.disconnectMs = disconnectMs;
+    }
+
+    public void setSeed(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public void setLoop(boolean loop) {
+        this.loop = loop;
+    }
+
+    public void setTerminate(boolean terminate) {
+        this.terminate = terminate;
+    }
+
+    public void setRespondMs(double respondMs) {
+        this.respondMs = respondMs;
+    }
+
+    public long getDisconnectCount() {
+        return disconnectCount;
+    }
+
+    @Override
+    public void open(int baudRate, int dataBits, int stopBits, int parity) throws Exception {
+        if (!source.equalsIgnoreCase(SYNTHETIC)) {
+            loadCapture(Paths.get(source));
+        } else if (rate <= 0) {
+            throw new Exception("Simulator rate must be positive");
+        }
+        frameIndex = 0;
+        pendingLength = 0;
+        pendingPosition = 0;
+        disconnectPending = false;
+        linkDownUntilNanos = 0;
+        answerCount = 0;
+        startNanos = System.nanoTime();
+        open = true;
+    }
+
+    // Called on the reader thread only
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws Exception {
+        if (!open) {
+            throw new IOException("Port closed: " + name);
+        }
+        if (disconnectPending) {
+            disconnectPending = false;
+            disconnectCount++;
+            linkDownUntilNanos = System.nanoTime() + disconnectMs * 1_000_000L;
+            throw new IOException("Simulated disconnect on " + name);
+        }
+        if (linkDownUntilNanos != 0) {
+            long downNanos = linkDownUntilNanos - System.nanoTime();
+            if (downNanos > 0) {
+                sleepNanos(Math.min(downNanos, READ_TIMEOUT_MS * 1_000_000L));
+                return 0;
+            }
+            // Frames sent while the link was down are lost
+            linkDownUntilNanos = 0;
+            answerCount = 0;
+            while (respondMs < 0 && speed > 0 && nextFrameDueNanos() < System.nanoTime()) {
+                frameIndex++;
+            }
+        }
+
+        int position = offset;
+        int end = offset + length;
+        long deadline = System.nanoTime() + READ_TIMEOUT_MS * 1_000_000L;
+        while (position < end) {
+            if (pendingPosition == pendingLength) {
+                long dueNanos = nextFrameDueNanos();
+                long waitNanos = dueNanos - System.nanoTime();
+                if (dueNanos == Long.MAX_VALUE || waitNanos > 0) {
+                    // Hand over what arrived so far, like a semi-blocking port read
+                    if (position > offset || System.nanoTime() >= deadline) {
+                        break;
+                    }
+                    sleepNanos(Math.min(waitNanos, deadline - System.nanoTime()));
+                    continue;
+                }
+                nextFrame();
+                if (disconnectPending) {
+                    // The link drops before this frame; the bytes read so far still arrive
+                    pendingLength = 0;
+                    pendingPosition = 0;
+                    break;
+                }
+            }
+            int count = Math.min(pendingLength - pendingPosition, end - position);
+            System.arraycopy(pending, pendingPosition, buffer, position, count);
+            pendingPosition += count;
+            position += count;
+        }
+        return position - offset;
+    }
+
+    @Override
+    public int available() {
+        if (disconnectPending) {
+            // Let the next read report the drop
+            return 1;
+        }
+        if (pendingPosition < pendingLength) {
+            return pendingLength - pendingPosition;
+        }
+        if (linkDownUntilNanos != 0) {
+            return 0;
+        }
+        long dueNanos = nextFrameDueNanos();
+        return dueNanos != Long.MAX_VALUE && dueNanos - System.nanoTime() <= 0 ? 1 : 0;
+    }
+
+    // Poll requests are ignored when streaming; with respond set each one (while the link
+    // is up) is answered by one frame
+    @Override
+    public void write(byte[] data, int length) {
+        if (respondMs < 0 || linkDownUntilNanos != 0 || answerCount == answers.length) {
+            return;
+        }
+        answers[(answerHead + answerCount) % answers.length] = System.nanoTime() + (long) (respondMs * 1_000_000);
+        answerCount++;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private long nextFrameDueNanos() {
+        if (respondMs >= 0) {
+            return answerCount > 0 ? answers[answerHead] : Long.MAX_VALUE;
+        }
+        double offsetMillis;
+        if (captureFrames != null) {
+            long pass = frameIndex / captureFrames.length;
+            if (pass > 0 && !loop) {
+                return Long.MAX_VALUE;
+            }
+            offsetMillis = pass * captureLoopMillis + captureOffsets[(int) (frameIndex % captureFrames.length)];
+        } else {
+            offsetMillis = frameIndex * 1000.0 / rate;
+        }
+        if (speed <= 0) {
+            return startNanos;
+        }
+        return startNanos + (long) (offsetMillis * 1_000_000.0 / speed);
+    }
+
+    // Fills pending with the next frame and whatever faults hit it
+    private void nextFrame() {
+        pendingLength = 0;
+        pendingPosition = 0;
+        if (answerCount > 0) {
+            answerHead = (answerHead + 1) % answers.length;
+            answerCount--;
+        }
+        if (disconnect > 0 && random.nextDouble() < disconnect) {
+            disconnectPending = true;
+        }
+        if (garbage > 0 && random.nextDouble() < garbage) {
+            int burst = 1 + random.nextInt(16);
+            for (int i = 0; i < burst; i++) {
+                pending[pendingLength++] = (byte) random.nextInt(256);
+            }
+        }
+
+        int frameStart = pendingLength;
+        if (captureFrames != null) {
+            byte[] frame = captureFrames[(int) (frameIndex % captureFrames.length)];
+            int length = Math.min(frame.length, pending.length - pendingLength - CRLF.length);
+            System.arraycopy(frame, 0, pending, pendingLength, length);
+            pendingLength += length;
+            if (terminate) {
+                appendPending(CRLF);
+            }
+        } else {
+            writeSyntheticFrame(frameIndex);
+        }
+
+        if (noise > 0) {
+            for (int i = frameStart; i < pendingLength; i++) {
+                if (random.nextDouble() < noise) {
+                    pending[i] = (byte) random.nextInt(256);
+                }
+            }
+        }
+        frameIndex++;
+    }
+
+    // "ST,GS,+  12.345kg\r\n" following an empty / loading / loaded / unloading cycle,
+    // written digit by digit so high rates are not limited by the simulator
+    private void writeSyntheticFrame(long index) {
+        int cycleLength = EMPTY_FRAMES + 2 * RAMP_FRAMES + LOADED_FRAMES;
+        long cycle = index / cycleLength;
+        int step = (int) (index % cycleLength);
+        long load = SYNTHETIC_LOADS[(int) (cycle % SYNTHETIC_LOADS.length)];
+
+        long grams;
+        boolean stable;
+        if (step < EMPTY_FRAMES) {
+            grams = 0;
+            stable = true;
+        } else if (step < EMPTY_FRAMES + RAMP_FRAMES) {
+            grams = load * (step - EMPTY_FRAMES + 1) / RAMP_FRAMES;
+            stable = false;
+        } else if (step < EMPTY_FRAMES + RAMP_FRAMES + LOADED_FRAMES) {
+            // A settled platform still flickers by one count now and then
+            grams = load + (random.nextInt(8) == 0 ? random.nextInt(3) - 1 : 0);
+            stable = true;
+        } else {
+            grams = load * (cycleLength - step - 1) / RAMP_FRAMES;
+            stable = false;
+        }
+
+        appendPending(stable ? STABLE_GROSS : MOTION_GROSS);
+        pending[pendingLength++] = grams < 0 ? (byte) '-' : (byte) '+';
+        long magnitude = Math.abs(grams);
+        long whole = magnitude / 1000;
+        long fraction = magnitude % 1000;
+        // Right-aligned in four places: "  12.345"
+        for (int i = pendingLength + 3; i >= pendingLength; i--) {
+            pending[i] = whole > 0 || i == pendingLength + 3 ? (byte) ('0' + whole % 10) : (byte) ' ';
+            whole /= 10;
+        }
+        pendingLength += 4;
+        pending[pendingLength++] = '.';
+        pending[pendingLength++] = (byte) ('0' + fraction / 100);
+        pending[pendingLength++] = (byte) ('0' + fraction / 10 % 10);
+        pending[pendingLength++] = (byte) ('0' + fraction % 10);
+        appendPending(KG_CRLF);
+    }
+
+    private void appendPending(byte[] bytes) {
+        System.arraycopy(bytes, 0, pending, pendingLength, bytes.length);
+        pendingLength += bytes.length;
+    }
+
+    private void loadCapture(Path path) throws Exception {
+        if (!Files.isRegularFile(path)) {
+            throw new Exception("Simulator capture not found: " + path.toAbsolutePath());
+        }
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> frames = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            try {
+                offsets.add(Long.parseLong(space > 0 ? line.substring(0, space) : line));
+            } catch (NumberFormatException e) {
+                throw new Exception("Capture " + path + " line " + lineNumber + ": expected '<ms> <frame>'");
+            }
+            frames.add(unescape(space > 0 ? line.substring(space + 1) : ""));
+        }
+        if (frames.isEmpty()) {
+            throw new Exception("Simulator capture is empty: " + path);
+        }
+
+        captureFrames = frames.toArray(new byte[0][]);
+        captureOffsets = new long[offsets.size()];
+        for (int i = 0; i < captureOffsets.length; i++) {
+            captureOffsets[i] = offsets.get(i);
+        }
+        // The next pass starts one typical frame interval after the last frame
+        long interval = captureOffsets.length > 1 ? Math.max(1, captureOffsets[1] - captureOffsets[0]) : 100;
+        captureLoopMillis = captureOffsets[captureOffsets.length - 1] + interval;
+    }
+
+    static byte[] unescape(String text) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                bytes.writeBytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+                continue;
+            }
+            char escape = text.charAt(++i);
+            switch (escape) {
+                case 'r':
+                    bytes.write('\r');
+                    break;
+                case 'n':
+                    bytes.write('\n');
+                    break;
+                case 't':
+                    bytes.write('\t');
+                    break;
+                case '\\':
+                    bytes.write('\\');
+                    break;
+                case 'x':
+                    if (i + 2 >= text.length()) {
+                        throw new Exception("Incomplete \\x escape in capture frame: " + text);
+                    }
+                    try {
+                        bytes.write(Integer.parseInt(text.substring(i + 1, i + 3), 16));
+                    } catch (NumberFormatException e) {
+                        throw new Exception("Invalid \\x escape in capture frame: " + text);
+                    }
+                    i += 2;
+                    break;
+                default:
+                    throw new Exception("Unknown escape \\" + escape + " in capture frame: " + text);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+}
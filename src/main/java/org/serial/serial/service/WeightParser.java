@@ -0,0 +1,230 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightType;
+import org.serial.serial.model.WeightUnit;
+
+// Parses the common ASCII indicator outputs straight from the frame bytes, e.g.
+//   "ST,GS,+  12.345kg"   "US,NT,-0.50 lb"   "S S     12.34 g"   "GROSS 1250 kg"   "  12.5"
+// Letters before the number are status/type flags (ST, US, OL, GS, NT, TR, ...),
+// letters after it are the unit, optionally followed by a type flag (G, N, T).
+// A lone ',' is a decimal comma ("12,50 kg"); next to a '.' or repeated it groups thousands.
+// No regex and no intermediate strings: the raw text is the caller's.
+public class WeightParser {
+    private volatile long parsedCount;
+    private volatile long failureCount;
+
+    public WeightReading parse(byte[] buffer, int offset, int length, long timestampMillis, long arrivalNanos,
+                               String raw) {
+        int end = offset + length;
+        boolean negative = false;
+        boolean haveNumber = false;
+        boolean afterNumber = false;
+        long value = 0;
+        int decimals = -1;
+        int digits = 0;
+        WeightUnit unit = WeightUnit.UNKNOWN;
+        WeightType type = WeightType.UNKNOWN;
+        Stability stability = Stability.UNKNOWN;
+
+        int i = offset;
+        while (i < end) {
+            byte b = buffer[i];
+
+            if (isLetter(b)) {
+                int start = i;
+                while (i < end && isLetter(buffer[i])) {
+                    i++;
+                }
+                int wordLength = i - start;
+
+                if (!afterNumber) {
+                    Stability flag = stabilityFlag(buffer, start, wordLength);
+                    if (flag != null) {
+                        stability = flag;
+                        continue;
+                    }
+                    WeightType typeFlag = typeFlag(buffer, start, wordLength);
+                    if (typeFlag != null) {
+                        type = typeFlag;
+                    }
+                } else if (unit == WeightUnit.UNKNOWN) {
+                    unit = unitOf(buffer, start, wordLength);
+                } else {
+                    WeightType typeFlag = typeFlag(buffer, start, wordLength);
+                    if (typeFlag != null) {
+                        type = typeFlag;
+                    }
+                }
+                continue;
+            }
+
+            if (!afterNumber && isDigit(b)) {
+                // Number: digits with '.' or ',' between them. The last separator is the decimal
+                // point unless that character occurs more than once ("1,250,000"); any other
+                // separator groups thousands ("1,250.5 kg", "1.250,5 kg")
+                int numberEnd = i;
+                int lastSeparator = -1;
+                while (numberEnd < end) {
+                    byte c = buffer[numberEnd];
+                    if (c == '.' || c == ',') {
+                        if (numberEnd + 1 >= end || !isDigit(buffer[numberEnd + 1])) {
+                            break;
+                        }
+                        lastSeparator = numberEnd;
+                    } else if (!isDigit(c)) {
+                        break;
+                    }
+                    numberEnd++;
+                }
+                int decimalPoint = lastSeparator >= 0 && countOf(buffer, i, numberEnd, buffer[lastSeparator]) == 1
+                        ? lastSeparator : -1;
+
+                while (i < numberEnd) {
+                    byte c = buffer[i];
+                    if (isDigit(c)) {
+                        if (digits < 18) {
+                            value = value * 10 + (c - '0');
+                            digits++;
+                            if (decimals >= 0) {
+                                decimals++;
+                            }
+                        } else {
+                            return fail(timestampMillis, arrivalNanos, raw);
+                        }
+                    } else if (i == decimalPoint) {
+                        decimals = 0;
+                    }
+                    i++;
+                }
+                haveNumber = true;
+                afterNumber = true;
+                continue;
+            }
+
+            if (!afterNumber && b == '-') {
+                negative = true;
+            } else if (!afterNumber && b == '+') {
+                negative = false;
+            } else if (!afterNumber && b == '?') {
+                // Some indicators flag motion with '?'
+                stability = Stability.MOTION;
+            }
+            i++;
+        }
+
+        if (!haveNumber) {
+            return fail(timestampMillis, arrivalNanos, raw);
+        }
+
+        if (decimals < 0) {
+            decimals = 0;
+        }
+        if (decimals > WeightReading.MAX_DECIMALS) {
+            return fail(timestampMillis, arrivalNanos, raw);
+        }
+
+        parsedCount++;
+        return new WeightReading(timestampMillis, arrivalNanos, negative ? -value : value, decimals,
+                unit, type, stability, raw);
+    }
+
+    private static int countOf(byte[] buffer, int from, int to, byte value) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private WeightReading fail(long timestampMillis, long arrivalNanos, String raw) {
+        failureCount++;
+        return WeightReading.invalid(timestampMillis, arrivalNanos, raw);
+    }
+
+    private static Stability stabilityFlag(byte[] buffer, int start, int length) {
+        if (matches(buffer, start, length, "ST") || matches(buffer, start, length, "S")) {
+            return Stability.STABLE;
+        }
+        if (matches(buffer, start, length, "US") || matches(buffer, start, length, "D")
+                || matches(buffer, start, length, "M") || matches(buffer, start, length, "MO")) {
+            return Stability.MOTION;
+        }
+        if (matches(buffer, start, length, "OL") || matches(buffer, start, length, "OVER")) {
+            return Stability.OVERLOAD;
+        }
+        return null;
+    }
+
+    private static WeightType typeFlag(byte[] buffer, int start, int length) {
+        if (matches(buffer, start, length, "GS") || matches(buffer, start, length, "G")
+                || matches(buffer, start, length, "GR") || matches(buffer, start, length, "GROSS")
+                || matches(buffer, start, length, "B")) {
+            return WeightType.GROSS;
+        }
+        if (matches(buffer, start, length, "NT") || matches(buffer, start, length, "N")
+                || matches(buffer, start, length, "NET")) {
+            return WeightType.NET;
+        }
+        if (matches(buffer, start, length, "TR") || matches(buffer, start, length, "T")
+                || matches(buffer, start, length, "TARE") || matches(buffer, start, length, "PT")) {
+            return WeightType.TARE;
+        }
+        return null;
+    }
+
+    private static WeightUnit unitOf(byte[] buffer, int start, int length) {
+        if (matches(buffer, start, length, "KG")) {
+            return WeightUnit.KG;
+        }
+        if (matches(buffer, start, length, "G")) {
+            return WeightUnit.G;
+        }
+        if (matches(buffer, start, length, "T")) {
+            return WeightUnit.T;
+        }
+        if (matches(buffer, start, length, "LB") || matches(buffer, start, length, "LBS")) {
+            return WeightUnit.LB;
+        }
+        if (matches(buffer, start, length, "OZ")) {
+            return WeightUnit.OZ;
+        }
+        return WeightUnit.UNKNOWN;
+    }
+
+    // Case-insensitive comparison of an ASCII word against an upper-case keyword
+    private static boolean matches(byte[] buffer, int start, int length, String keyword) {
+        if (length != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int c = buffer[start + i];
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    public long getParsedCount() {
+        return parsedCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+}
@@ -0,0 +1,19 @@
+package org.serial.serial.service;
+
+public enum WindowMode {
+    // Back-to-back windows aligned to the clock, one aggregate per window
+    TUMBLING("Tumbling"),
+    // The last window length of readings, re-aggregated every slide interval
+    SLIDING("Sliding");
+
+    private final String label;
+
+    WindowMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,80 @@
+package org.serial.serial.service;
+
+import org.serial.serial.model.WeightUnit;
+
+// Aggregate of the valid readings of one port in [start, end). min, max and last are
+// fixed-point like WeightReading (value * 10^-decimals); mean and the sample standard
+// deviation are in the indicator's unit. Reused by its ReadingAggregator window, so
+// listeners must not keep it.
+public final class WindowStats {
+    private WindowMode mode;
+    private long startMillis;
+    private long endMillis;
+    private int count;
+    private long min;
+    private long max;
+    private long last;
+    private int decimals;
+    private WeightUnit unit;
+    private double mean;
+    private double stddev;
+
+    void set(WindowMode mode, long startMillis, long endMillis, int count, long min, long max, long last,
+             int decimals, WeightUnit unit, double mean, double stddev) {
+        this.mode = mode;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.last = last;
+        this.decimals = decimals;
+        this.unit = unit;
+        this.mean = mean;
+        this.stddev = stddev;
+    }
+
+    public WindowMode getMode() {
+        return mode;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public int getDecimals() {
+        return decimals;
+    }
+
+    public WeightUnit getUnit() {
+        return unit;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStddev() {
+        return stddev;
+    }
+}
@@ -0,0 +1,266 @@
+package org.serial.serial.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Store-and-forward log for messages that could not be published.
+// Messages are appended to fixed-size memory-mapped segment files:
+//   [int bodyLength][short topicLength][topic bytes][payload bytes]
+// A zero length marks the end of the written data in a segment. The replay
+// position (segment id + offset) lives in a small mapped cursor file so it
+// survives restarts. Fully replayed segments are deleted.
+public class Outbox {
+    public static final String DEFAULT_DIR = "outbox";
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int LENGTH_SIZE = 4;
+    private static final int HEADER_SIZE = LENGTH_SIZE + 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final MappedByteBuffer cursorBuffer;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readOffset;
+    private int peekedRecordSize;
+
+    private long pendingCount;
+
+    public Outbox(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public Outbox(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        cursorBuffer = map(directory.resolve(CURSOR_FILE), 12);
+        long cursorSegment = cursorBuffer.getLong(0);
+        int cursorOffset = cursorBuffer.getInt(8);
+
+        List<Long> segments = listSegments();
+        for (Long segment : segments) {
+            if (segment < cursorSegment) {
+                deleteSegment(segment);
+            }
+        }
+        segments.removeIf(segment -> segment < cursorSegment);
+
+        if (segments.isEmpty() || segments.get(0) > cursorSegment) {
+            readSegment = segments.isEmpty() ? cursorSegment : segments.get(0);
+            readOffset = 0;
+        } else {
+            readSegment = cursorSegment;
+            readOffset = cursorOffset;
+        }
+
+        writeSegment = segments.isEmpty() ? readSegment : Math.max(segments.get(segments.size() - 1), readSegment);
+        writeBuffer = mapSegment(writeSegment);
+        writePosition = findEnd(writeBuffer);
+
+        pendingCount = countPending();
+        saveCursor();
+    }
+
+    public synchronized void append(String topic, byte[] payloadBytes) throws IOException {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        int recordSize = HEADER_SIZE + topicBytes.length + payloadBytes.length;
+
+        if (recordSize + LENGTH_SIZE > segmentSize) {
+            throw new IOException("Message too large for outbox segment: " + recordSize + " bytes");
+        }
+
+        if (writePosition + recordSize + LENGTH_SIZE > segmentSize) {
+            writeSegment++;
+            writeBuffer = mapSegment(writeSegment);
+            writePosition = 0;
+        }
+
+        writeBuffer.putShort(writePosition + LENGTH_SIZE, (short) topicBytes.length);
+        writeBuffer.put(writePosition + HEADER_SIZE, topicBytes);
+        writeBuffer.put(writePosition + HEADER_SIZE + topicBytes.length, payloadBytes);
+        // Length goes last so a torn write is never seen as a complete record
+        writeBuffer.putInt(writePosition, recordSize - LENGTH_SIZE);
+
+        writePosition += recordSize;
+        pendingCount++;
+    }
+
+    // Returns the oldest unreplayed message without removing it, or null if there is none
+    public synchronized Entry peek() throws IOException {
+        while (true) {
+            if (readSegment == writeSegment && readOffset >= writePosition) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = readSegmentBuffer();
+            int bodyLength = readOffset + LENGTH_SIZE <= segmentSize ? buffer.getInt(readOffset) : 0;
+
+            if (bodyLength <= 0) {
+                if (readSegment < writeSegment) {
+                    // Segment exhausted: move on and drop it
+                    long finished = readSegment;
+                    readSegment++;
+                    readOffset = 0;
+                    readBuffer = null;
+                    saveCursor();
+                    deleteSegment(finished);
+                    continue;
+                }
+                return null;
+            }
+
+            int topicLength = buffer.getShort(readOffset + LENGTH_SIZE);
+            byte[] topicBytes = new byte[topicLength];
+            byte[] payloadBytes = new byte[bodyLength - 2 - topicLength];
+            buffer.get(readOffset + HEADER_SIZE, topicBytes);
+            buffer.get(readOffset + HEADER_SIZE + topicLength, payloadBytes);
+
+            peekedRecordSize = LENGTH_SIZE + bodyLength;
+            return new Entry(new String(topicBytes, StandardCharsets.UTF_8), payloadBytes);
+        }
+    }
+
+    // Marks the message returned by the last peek() as delivered
+    public synchronized void commit() {
+        if (peekedRecordSize == 0) {
+            return;
+        }
+        readOffset += peekedRecordSize;
+        peekedRecordSize = 0;
+        pendingCount--;
+        saveCursor();
+    }
+
+    public synchronized long getPendingCount() {
+        return pendingCount;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    public synchronized void close() {
+        writeBuffer.force();
+        cursorBuffer.force();
+    }
+
+    private MappedByteBuffer readSegmentBuffer() throws IOException {
+        if (readSegment == writeSegment) {
+            return writeBuffer;
+        }
+        if (readBuffer == null) {
+            readBuffer = mapSegment(readSegment);
+        }
+        return readBuffer;
+    }
+
+    private void saveCursor() {
+        // Offset first: a torn update can only cause a re-send, never a skipped message
+        cursorBuffer.putInt(8, readOffset);
+        cursorBuffer.putLong(0, readSegment);
+    }
+
+    private long countPending() throws IOException {
+        long count = 0;
+        for (long segment = readSegment; segment <= writeSegment; segment++) {
+            MappedByteBuffer buffer = segment == writeSegment ? writeBuffer : mapSegment(segment);
+            int position = segment == readSegment ? readOffset : 0;
+            while (position + LENGTH_SIZE <= segmentSize) {
+                int bodyLength = buffer.getInt(position);
+                if (bodyLength <= 0) {
+                    break;
+                }
+                count++;
+                position += LENGTH_SIZE + bodyLength;
+            }
+        }
+        return count;
+    }
+
+    private int findEnd(MappedByteBuffer buffer) {
+        int position = 0;
+        while (position + LENGTH_SIZE <= segmentSize) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength <= 0) {
+                break;
+            }
+            position += LENGTH_SIZE + bodyLength;
+        }
+        return position;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                    name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer mapSegment(long segment) throws IOException {
+        return map(segmentPath(segment), segmentSize);
+    }
+
+    private void deleteSegment(long segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            // Still mapped on some platforms; it is removed on the next start
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    public static class Entry {
+        private final String topic;
+        private final byte[] payload;
+
+        public Entry(String topic, byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package org.serial.serial.store;
+
+import org.serial.serial.model.Stability;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightType;
+import org.serial.serial.model.WeightUnit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+// Append-only history of one port. Readings are fixed-size records in memory-mapped
+// segment files, so record n is found by arithmetic:
+//   [long timestamp][long value][byte decimals][byte unit][byte type][byte stability]
+//   [byte flags][byte rawLength][raw bytes, up to MAX_RAW_BYTES]
+// flags is written last: bit 0 marks a complete record, bit 1 a valid reading (unparsable
+// frames keep the start of their text instead). index.dat is the sparse timestamp index:
+// one long per INDEX_INTERVAL records, the highest timestamp seen up to that record.
+// Only the index (1/1024 of the records) and a few mapped segments are held, so heap use
+// stays small however long the history grows.
+//
+// Timestamps are expected to be non-decreasing; after the clock steps back, readings are
+// still stored but a range query may stop before reaching them.
+public class ReadingLog {
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 256 * 1024;
+    static final int RECORD_SIZE = 32;
+    static final int MAX_RAW_BYTES = 10;
+    static final int INDEX_INTERVAL = 1024;
+
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String INDEX_FILE = "index.dat";
+    private static final int MAX_MAPPED_SEGMENTS = 4;
+    private static final int FLAGS_OFFSET = 20;
+    private static final int FLAG_COMPLETE = 1;
+    private static final int FLAG_VALID = 2;
+
+    private static final WeightUnit[] UNITS = WeightUnit.values();
+    private static final WeightType[] TYPES = WeightType.values();
+    private static final Stability[] STABILITIES = Stability.values();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(8);
+    // Read segments, least recently used first
+    private final Map<Long, MappedByteBuffer> mappedSegments = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+            return size() > MAX_MAPPED_SEGMENTS;
+        }
+    };
+
+    private long[] index = new long[64];
+    private int indexSize;
+    private volatile long count;
+    private long maxTimestamp = Long.MIN_VALUE;
+
+    private long writeSegment = -1;
+    private MappedByteBuffer writeBuffer;
+
+    public ReadingLog(Path directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public ReadingLog(Path directory, int recordsPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegments();
+        if (!segments.isEmpty()) {
+            long last = segments.get(segments.size() - 1);
+            count = last * recordsPerSegment + findEnd(segmentBuffer(last));
+        }
+
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadIndex();
+    }
+
+    public synchronized void append(WeightReading reading) throws IOException {
+        long segment = count / recordsPerSegment;
+        if (segment != writeSegment) {
+            writeBuffer = mapSegment(segment);
+            writeSegment = segment;
+        }
+
+        int position = (int) (count % recordsPerSegment) * RECORD_SIZE;
+        writeBuffer.putLong(position, reading.getTimestampMillis());
+        writeBuffer.putLong(position + 8, reading.getValue());
+        writeBuffer.put(position + 16, (byte) reading.getDecimals());
+        writeBuffer.put(position + 17, (byte) reading.getUnit().ordinal());
+        writeBuffer.put(position + 18, (byte) reading.getType().ordinal());
+        writeBuffer.put(position + 19, (byte) reading.getStability().ordinal());
+        int flags = FLAG_COMPLETE;
+        if (reading.isValid()) {
+            flags |= FLAG_VALID;
+            writeBuffer.put(position + FLAGS_OFFSET + 1, (byte) 0);
+        } else {
+            writeRaw(position, reading.getRaw());
+        }
+        // Flags go last so a torn write is never seen as a complete record
+        writeBuffer.put(position + FLAGS_OFFSET, (byte) flags);
+
+        maxTimestamp = Math.max(maxTimestamp, reading.getTimestampMillis());
+        if (count % INDEX_INTERVAL == 0) {
+            appendIndex(maxTimestamp);
+        }
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Readings with from <= timestamp <= to, oldest first, decoded one at a time
+    public Iterator<WeightReading> iterator(long fromMillis, long toMillis) {
+        return new Cursor(startRecord(fromMillis), count, fromMillis, toMillis);
+    }
+
+    // Like iterator(), but stops after maxResults readings
+    public List<WeightReading> query(long fromMillis, long toMillis, int maxResults) {
+        List<WeightReading> readings = new ArrayList<>();
+        Iterator<WeightReading> cursor = iterator(fromMillis, toMillis);
+        while (readings.size() < maxResults && cursor.hasNext()) {
+            readings.add(cursor.next());
+        }
+        return readings;
+    }
+
+    public synchronized void close() {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+        try {
+            indexChannel.close();
+        } catch (IOException e) {
+            // Nothing left to flush: index entries are written through
+        }
+        mappedSegments.clear();
+    }
+
+    // First record of the index block where from can start; the index holds running
+    // maxima, so every record before that block is older than from
+    private synchronized long startRecord(long fromMillis) {
+        int low = 0;
+        int high = indexSize - 1;
+        int block = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (index[middle] < fromMillis) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return (long) block * INDEX_INTERVAL;
+    }
+
+    private void writeRaw(int position, String raw) {
+        byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_RAW_BYTES);
+        // Do not cut a multi-byte character in half
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        writeBuffer.put(position + FLAGS_OFFSET + 1, (byte) length);
+        writeBuffer.put(position + FLAGS_OFFSET + 2, bytes, 0, length);
+    }
+
+    private void appendIndex(long timestamp) throws IOException {
+        if (indexSize == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[indexSize] = timestamp;
+        indexEntry.clear();
+        indexEntry.putLong(0, timestamp);
+        indexChannel.write(indexEntry, (long) indexSize * 8);
+        indexSize++;
+    }
+
+    // Reads index.dat and repairs it after a crash between a record and its index entry
+    private void loadIndex() throws IOException {
+        long expected = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        int stored = (int) Math.min(indexChannel.size() / 8, expected);
+        index = new long[Math.max(64, Integer.highestOneBit(Math.max(stored, 1)) * 2)];
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        for (int entry = 0; entry < stored; ) {
+            buffer.clear();
+            buffer.limit(Math.min(buffer.capacity(), (stored - entry) * 8));
+            indexChannel.read(buffer, (long) entry * 8);
+            buffer.flip();
+            while (buffer.remaining() >= 8) {
+                index[entry++] = buffer.getLong();
+            }
+        }
+        indexSize = stored;
+        indexChannel.truncate((long) stored * 8);
+
+        // Running maximum over the records after the last index entry
+        long first = indexSize > 0 ? (long) (indexSize - 1) * INDEX_INTERVAL : 0;
+        maxTimestamp = indexSize > 0 ? index[indexSize - 1] : Long.MIN_VALUE;
+        for (long record = first; record < count; record++) {
+            MappedByteBuffer segment = segmentBuffer(record / recordsPerSegment);
+            if (segment != null) {
+                maxTimestamp = Math.max(maxTimestamp,
+                        segment.getLong((int) (record % recordsPerSegment) * RECORD_SIZE));
+            }
+            if (record % INDEX_INTERVAL == 0 && record / INDEX_INTERVAL >= indexSize) {
+                appendIndex(maxTimestamp);
+            }
+        }
+    }
+
+    private synchronized MappedByteBuffer segmentBuffer(long segment) throws IOException {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        MappedByteBuffer buffer = mappedSegments.get(segment);
+        if (buffer == null) {
+            if (!Files.exists(segmentPath(segment))) {
+                return null;
+            }
+            buffer = mapSegment(segment);
+            mappedSegments.put(segment, buffer);
+        }
+        return buffer;
+    }
+
+    // Number of complete records in a segment; they are written in order
+    private int findEnd(MappedByteBuffer buffer) {
+        int low = 0;
+        int high = recordsPerSegment;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if ((buffer.get(middle * RECORD_SIZE + FLAGS_OFFSET) & FLAG_COMPLETE) != 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                    name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer mapSegment(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        }
+    }
+
+    private static WeightReading decode(MappedByteBuffer buffer, int position) {
+        long timestamp = buffer.getLong(position);
+        int flags = buffer.get(position + FLAGS_OFFSET);
+        if ((flags & FLAG_VALID) == 0) {
+            byte[] raw = new byte[buffer.get(position + FLAGS_OFFSET + 1)];
+            buffer.get(position + FLAGS_OFFSET + 2, raw);
+            return WeightReading.invalid(timestamp, 0, new String(raw, StandardCharsets.UTF_8));
+        }
+        return new WeightReading(timestamp, 0, buffer.getLong(position + 8), buffer.get(position + 16),
+                UNITS[buffer.get(position + 17)], TYPES[buffer.get(position + 18)],
+                STABILITIES[buffer.get(position + 19)], "");
+    }
+
+    // Walks records [record, end) and yields those inside the range. end is the count when
+    // the cursor was created, so readings appended meanwhile are not seen.
+    private final class Cursor implements Iterator<WeightReading> {
+        private final long end;
+        private final long fromMillis;
+        private final long toMillis;
+        private long record;
+        private long segment = -1;
+        private MappedByteBuffer buffer;
+        private WeightReading next;
+        private boolean done;
+
+        private Cursor(long record, long end, long fromMillis, long toMillis) {
+            this.record = record;
+            this.end = end;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                if (record >= end) {
+                    done = true;
+                    break;
+                }
+                if (record / recordsPerSegment != segment) {
+                    segment = record / recordsPerSegment;
+                    try {
+                        buffer = segmentBuffer(segment);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Cannot map history segment: " + e.getMessage(), e);
+                    }
+                }
+                if (buffer == null) {
+                    // Segment removed by hand: continue with the next one
+                    record = (record / recordsPerSegment + 1) * recordsPerSegment;
+                    continue;
+                }
+                int position = (int) (record % recordsPerSegment) * RECORD_SIZE;
+                long timestamp = buffer.getLong(position);
+                record++;
+                if (timestamp > toMillis) {
+                    done = true;
+                } else if (timestamp >= fromMillis) {
+                    next = decode(buffer, position);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public WeightReading next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            WeightReading reading = next;
+            next = null;
+            return reading;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.serial.serial.store;
+
+import org.serial.serial.model.WeightReading;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// History of every reading, one ReadingLog per port in a subdirectory named after the
+// port (characters that are not safe in file names replaced by '_').
+public class ReadingStore {
+    public static final String DEFAULT_DIR = "history";
+
+    private final Path directory;
+    private final Map<String, ReadingLog> logs = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    public ReadingStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    // Called on the port's reader thread
+    public void append(String portName, WeightReading reading) throws IOException {
+        log(portName).append(reading);
+    }
+
+    public Iterator<WeightReading> iterator(String portName, long fromMillis, long toMillis) throws IOException {
+        return log(portName).iterator(fromMillis, toMillis);
+    }
+
+    public List<WeightReading> query(String portName, long fromMillis, long toMillis, int maxResults)
+            throws IOException {
+        return log(portName).query(fromMillis, toMillis, maxResults);
+    }
+
+    // Ports with a history, as directory names
+    public List<String> getPorts() throws IOException {
+        List<String> ports = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isDirectory).forEach(path -> ports.add(path.getFileName().toString()));
+        }
+        Collections.sort(ports);
+        return ports;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        for (ReadingLog log : logs.values()) {
+            log.close();
+        }
+        logs.clear();
+    }
+
+    private ReadingLog log(String portName) throws IOException {
+        String name = fileName(portName);
+        ReadingLog log = logs.get(name);
+        if (log == null) {
+            log = openLog(name);
+        }
+        return log;
+    }
+
+    private synchronized ReadingLog openLog(String name) throws IOException {
+        if (closed) {
+            throw new IOException("History store is closed");
+        }
+        ReadingLog log = logs.get(name);
+        if (log == null) {
+            log = new ReadingLog(directory.resolve(name));
+            logs.put(name, log);
+        }
+        return log;
+    }
+
+    // COM3 stays COM3, /dev/ttyUSB0 becomes _dev_ttyUSB0
+    static String fileName(String portName) {
+        StringBuilder name = new StringBuilder(portName.length());
+        for (int i = 0; i < portName.length(); i++) {
+            char c = portName.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_';
+            name.append(safe ? c : '_');
+        }
+        return name.toString();
+    }
+}
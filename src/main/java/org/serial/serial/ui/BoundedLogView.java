@@ -0,0 +1,101 @@
+package org.serial.serial.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.ListView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Virtualized, bounded text pane. Producers on any thread only enqueue lines; an
+// AnimationTimer moves whatever arrived into the list once per frame, so the UI cost
+// per pulse stays bounded no matter how fast lines arrive. Only the newest
+// 'capacity' lines are retained.
+public class BoundedLogView {
+    public static final int DEFAULT_CAPACITY = 5000;
+
+    private final ListView<String> listView;
+    private final RingBufferList<String> lines;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final List<String> batch = new ArrayList<>();
+    private volatile int capacity;
+    private final AnimationTimer drainTimer;
+
+    public BoundedLogView(int capacity) {
+        this.capacity = capacity;
+        this.lines = new RingBufferList<>(capacity);
+        this.listView = new ListView<>(lines);
+        this.listView.setFixedCellSize(20);
+
+        drainTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drain();
+            }
+        };
+        drainTimer.start();
+    }
+
+    // Thread-safe; lines beyond the retention cap are dropped before they reach the FX thread
+    public void append(String line) {
+        pending.offer(line);
+        if (pendingCount.incrementAndGet() > capacity && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    private void drain() {
+        String line;
+        while ((line = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(line);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean atBottom = lines.isEmpty() || isShowingLast();
+        lines.appendAll(batch);
+        batch.clear();
+
+        // Follow the tail unless the operator scrolled up to read something
+        if (atBottom) {
+            listView.scrollTo(lines.size() - 1);
+        }
+    }
+
+    private boolean isShowingLast() {
+        VirtualFlow<?> flow = (VirtualFlow<?>) listView.lookup(".virtual-flow");
+        if (flow == null || flow.getLastVisibleCell() == null) {
+            return true;
+        }
+        return flow.getLastVisibleCell().getIndex() >= lines.size() - 1;
+    }
+
+    // FX thread only
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        lines.setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        pending.clear();
+        pendingCount.set(0);
+        lines.clear();
+    }
+
+    public void stop() {
+        drainTimer.stop();
+    }
+
+    public ListView<String> getView() {
+        return listView;
+    }
+}
@@ -0,0 +1,164 @@
+package org.serial.serial.ui;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import org.kordamp.ikonli.javafx.FontIcon;
+import org.kordamp.ikonli.materialdesign2.MaterialDesignM;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightUnit;
+import org.serial.serial.store.ReadingStore;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Looks up stored readings of one port between two points in time. The query runs off
+// the FX thread and is capped at MAX_ROWS, so a wide range cannot fill the heap.
+public class HistoryView {
+    public static final int MAX_ROWS = 10000;
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm[:ss]");
+    private static final DateTimeFormatter ROW_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final ReadingStore readingStore;
+    private final VBox root;
+    private final ComboBox<String> portComboBox = new ComboBox<>();
+    private final DatePicker fromDatePicker = new DatePicker(LocalDate.now());
+    private final TextField fromTimeField = new TextField("00:00");
+    private final DatePicker toDatePicker = new DatePicker(LocalDate.now());
+    private final TextField toTimeField = new TextField("23:59:59");
+    private final Button queryButton = new Button("Show");
+    private final TableView<WeightReading> table = new TableView<>();
+    private final Label resultLabel = new Label();
+
+    public HistoryView(ReadingStore readingStore) {
+        this.readingStore = readingStore;
+
+        portComboBox.setPrefWidth(140);
+        fromTimeField.setPrefWidth(80);
+        toTimeField.setPrefWidth(80);
+        queryButton.setGraphic(new FontIcon(MaterialDesignM.MAGNIFY));
+        queryButton.setOnAction(e -> runQuery());
+
+        HBox portBox = new HBox(10, new Label("Port:"), portComboBox, queryButton);
+        portBox.setAlignment(Pos.CENTER_LEFT);
+        HBox rangeBox = new HBox(10, new Label("From:"), fromDatePicker, fromTimeField,
+                new Label("To:"), toDatePicker, toTimeField);
+        rangeBox.setAlignment(Pos.CENTER_LEFT);
+
+        createTable();
+        table.setPlaceholder(new Label("Choose a port and a time range"));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        root = new VBox(10, portBox, rangeBox, table, resultLabel);
+        root.setPadding(new Insets(15));
+        refreshPorts();
+    }
+
+    private void createTable() {
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<WeightReading, String> timeColumn = new TableColumn<>("Time");
+        timeColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(
+                ROW_FORMATTER.format(Instant.ofEpochMilli(data.getValue().getTimestampMillis()))));
+
+        TableColumn<WeightReading, String> weightColumn = new TableColumn<>("Weight");
+        weightColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().isValid()
+                ? data.getValue().formatValue() : data.getValue().getRaw()));
+
+        TableColumn<WeightReading, String> unitColumn = new TableColumn<>("Unit");
+        unitColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(
+                data.getValue().getUnit() != WeightUnit.UNKNOWN ? data.getValue().getUnit().getSymbol() : ""));
+
+        TableColumn<WeightReading, String> typeColumn = new TableColumn<>("Type");
+        typeColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().getType().name()));
+
+        TableColumn<WeightReading, String> stabilityColumn = new TableColumn<>("Stability");
+        stabilityColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(
+                data.getValue().getStability().name()));
+
+        table.getColumns().add(timeColumn);
+        table.getColumns().add(weightColumn);
+        table.getColumns().add(unitColumn);
+        table.getColumns().add(typeColumn);
+        table.getColumns().add(stabilityColumn);
+    }
+
+    public void refreshPorts() {
+        try {
+            String selected = portComboBox.getValue();
+            portComboBox.getItems().setAll(readingStore.getPorts());
+            if (selected != null && portComboBox.getItems().contains(selected)) {
+                portComboBox.setValue(selected);
+            } else if (!portComboBox.getItems().isEmpty()) {
+                portComboBox.getSelectionModel().selectFirst();
+            }
+        } catch (Exception e) {
+            resultLabel.setText("Cannot list history: " + e.getMessage());
+        }
+    }
+
+    private void runQuery() {
+        String port = portComboBox.getValue();
+        if (port == null) {
+            resultLabel.setText("No port has a history yet");
+            return;
+        }
+        long from;
+        long to;
+        try {
+            from = toMillis(fromDatePicker.getValue(), fromTimeField.getText());
+            // Inclusive up to the end of the given second or minute
+            to = toMillis(toDatePicker.getValue(), toTimeField.getText())
+                    + (toTimeField.getText().trim().length() > 5 ? 999 : 59_999);
+        } catch (Exception e) {
+            resultLabel.setText("Invalid time, use HH:mm or HH:mm:ss");
+            return;
+        }
+
+        queryButton.setDisable(true);
+        resultLabel.setText("Searching...");
+        Thread query = new Thread(() -> {
+            try {
+                List<WeightReading> readings = readingStore.query(port, from, to, MAX_ROWS + 1);
+                Platform.runLater(() -> showResult(readings));
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    queryButton.setDisable(false);
+                    resultLabel.setText("Query failed: " + e.getMessage());
+                });
+            }
+        }, "history-query");
+        query.setDaemon(true);
+        query.start();
+    }
+
+    private void showResult(List<WeightReading> readings) {
+        queryButton.setDisable(false);
+        if (readings.size() > MAX_ROWS) {
+            table.getItems().setAll(readings.subList(0, MAX_ROWS));
+            resultLabel.setText("Showing the first " + MAX_ROWS + " readings, narrow the range to see the rest");
+        } else {
+            table.getItems().setAll(readings);
+            resultLabel.setText(readings.size() + " readings");
+        }
+    }
+
+    private static long toMillis(LocalDate date, String time) {
+        LocalTime localTime = LocalTime.parse(time.trim(), TIME_FORMATTER);
+        return LocalDateTime.of(date, localTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public VBox getRoot() {
+        return root;
+    }
+}
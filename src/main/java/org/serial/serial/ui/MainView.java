@@ -1,53 +1,131 @@
 package org.serial.serial.ui;
 
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.materialdesign2.*;
-import org.serial.serial.service.SerialService;
+import org.serial.serial.service.Bridge;
+import org.serial.serial.service.OverflowPolicy;
+import org.serial.serial.service.PayloadFormat;
+import org.serial.serial.service.PayloadSchema;
+import org.serial.serial.service.PollScheduler;
+import org.serial.serial.service.PublishMode;
+import org.serial.serial.service.PortChannel;
+import org.serial.serial.service.PortConfig;
+import org.serial.serial.service.PortManager;
+import org.serial.serial.service.PublishPipeline;
+import org.serial.serial.service.ReadMode;
+import org.serial.serial.service.ReadingBatcher;
+import org.serial.serial.service.ReadingAggregator;
+import org.serial.serial.service.ReadingFilter;
+import org.serial.serial.service.WindowMode;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.service.FrameDecoder;
+import org.serial.serial.service.Framing;
 import org.serial.serial.service.MqttService;
+import org.serial.serial.store.Outbox;
+import org.serial.serial.store.ReadingStore;
+import org.serial.serial.util.LogLevel;
 import org.serial.serial.util.LogManager;
 
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MainView {
     private BorderPane root;
     private ComboBox<String> portComboBox;
+    private ComboBox<ReadMode> readModeComboBox;
+    private ComboBox<Integer> baudRateComboBox;
+    private ComboBox<Framing> framingComboBox;
+    private Spinner<Integer> frameLengthSpinner;
+    private TableView<PortChannel> portTable;
+    private Button addPortButton;
+    private Button removePortButton;
     private TextField brokerField;
     private TextField topicField;
+    private TextField payloadFieldsField;
+    private TextField deviceIdField;
+    private ComboBox<PayloadFormat> payloadFormatComboBox;
+    private ComboBox<OverflowPolicy> overflowPolicyComboBox;
+    private Spinner<Integer> replayRateSpinner;
+    private ComboBox<PublishMode> publishModeComboBox;
+    private CheckBox batchCheckBox;
+    private Spinner<Integer> batchSizeSpinner;
+    private Spinner<Integer> batchWindowSpinner;
+    private Spinner<Integer> batchBytesSpinner;
+    private CheckBox filterCheckBox;
+    private Spinner<Double> deadbandSpinner;
+    private Spinner<Integer> heartbeatSpinner;
+    private CheckBox aggregateCheckBox;
+    private ComboBox<WindowMode> windowModeComboBox;
+    private Spinner<Integer> windowSpinner;
+    private Spinner<Integer> slideSpinner;
     private TextField usernameField;
     private PasswordField passwordField;
     private Button connectButton;
     private Button startButton;
     private Label statusLabel;
     private Label connectionStatusLabel;
-    private TextArea dataTextArea;
-    private TextArea logTextArea;
+    private BoundedLogView dataView;
+    private WeightChart weightChart;
+    private BoundedLogView logView;
+    private AnimationTimer counterTimer;
     private Label startTimeLabel;
     private Label stopTimeLabel;
     private Label messagesCountLabel;
+    private Label throughputLabel;
+    private Label suppressedLabel;
+    private Stage historyStage;
+    private HistoryView historyView;
 
-    private SerialService serialService;
+    private Bridge bridge;
+    private PortManager portManager;
     private MqttService mqttService;
+    private PublishPipeline publishPipeline;
+    private ReadingBatcher readingBatcher;
+    private ReadingFilter readingFilter;
+    private ReadingAggregator readingAggregator;
     private LogManager logManager;
 
     private boolean isRunning = false;
-    private int messageCount = 0;
+    private final AtomicLong messageCount = new AtomicLong();
+    private long displayedMessageCount = -1;
     private LocalDateTime sessionStartTime;
+    private Timeline statsTimeline;
+
+    private static final Integer[] BAUD_RATES = {1200, 2400, 4800, 9600, 19200, 38400, 57600, 115200};
 
     private static final DateTimeFormatter TIME_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public MainView() {
         logManager = LogManager.getInstance();
-        serialService = new SerialService();
-        mqttService = new MqttService();
+        bridge = new Bridge();
+        bridge.setReadingListener(this::handleSerialData);
+        bridge.openOutbox(Paths.get(Outbox.DEFAULT_DIR));
+        bridge.openHistory(Paths.get(ReadingStore.DEFAULT_DIR));
+        portManager = bridge.getPortManager();
+        mqttService = bridge.getMqttService();
+        publishPipeline = bridge.getPublishPipeline();
+        readingBatcher = bridge.getReadingBatcher();
+        readingFilter = bridge.getReadingFilter();
+        readingAggregator = bridge.getReadingAggregator();
 
         initializeUI();
         setupEventHandlers();
@@ -155,10 +233,104 @@ public class MainView {
 
         portBox.getChildren().addAll(new Label("Port:"), portComboBox, refreshButton);
 
-        section.getChildren().addAll(sectionLabel, portBox);
+        HBox modeBox = new HBox(10);
+        modeBox.setAlignment(Pos.CENTER_LEFT);
+
+        readModeComboBox = new ComboBox<>();
+        readModeComboBox.getItems().addAll(ReadMode.values());
+        readModeComboBox.getSelectionModel().select(ReadMode.POLLING);
+        readModeComboBox.setPrefWidth(200);
+
+        modeBox.getChildren().addAll(new Label("Mode:"), readModeComboBox);
+
+        HBox baudBox = new HBox(10);
+        baudBox.setAlignment(Pos.CENTER_LEFT);
+
+        baudRateComboBox = new ComboBox<>();
+        baudRateComboBox.getItems().addAll(BAUD_RATES);
+        baudRateComboBox.getSelectionModel().select(Integer.valueOf(PortConfig.DEFAULT_BAUD_RATE));
+        baudRateComboBox.setPrefWidth(200);
+
+        baudBox.getChildren().addAll(new Label("Baud:"), baudRateComboBox);
+
+        HBox framingBox = new HBox(10);
+        framingBox.setAlignment(Pos.CENTER_LEFT);
+
+        framingComboBox = new ComboBox<>();
+        framingComboBox.getItems().addAll(Framing.values());
+        framingComboBox.getSelectionModel().select(Framing.LINE);
+        framingComboBox.setPrefWidth(200);
+
+        // Bytes per frame, only used (and required) by fixed-length framing
+        frameLengthSpinner = new Spinner<>(1, FrameDecoder.DEFAULT_MAX_FRAME_LENGTH, 16);
+        frameLengthSpinner.setEditable(true);
+        frameLengthSpinner.setPrefWidth(80);
+        frameLengthSpinner.disableProperty().bind(framingComboBox.valueProperty().isNotEqualTo(Framing.FIXED_LENGTH));
+
+        framingBox.getChildren().addAll(new Label("Frame:"), framingComboBox, new Label("Bytes:"), frameLengthSpinner);
+
+        addPortButton = new Button("Add Port");
+        FontIcon addIcon = new FontIcon(MaterialDesignP.PLUS);
+        addPortButton.setGraphic(addIcon);
+        addPortButton.setOnAction(e -> handleAddPort());
+
+        removePortButton = new Button("Remove");
+        FontIcon removeIcon = new FontIcon(MaterialDesignD.DELETE);
+        removePortButton.setGraphic(removeIcon);
+        removePortButton.setOnAction(e -> handleRemovePort());
+
+        HBox portButtons = new HBox(10, addPortButton, removePortButton);
+        portButtons.setAlignment(Pos.CENTER_LEFT);
+
+        portTable = createPortTable();
+
+        section.getChildren().addAll(sectionLabel, portBox, modeBox, baudBox, framingBox, portButtons, portTable);
         return section;
     }
 
+    private TableView<PortChannel> createPortTable() {
+        TableView<PortChannel> table = new TableView<>();
+        table.setPrefHeight(150);
+        table.setEditable(true);
+        table.setPlaceholder(new Label("No ports added"));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<PortChannel, String> portColumn = new TableColumn<>("Port");
+        portColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getPortName()));
+
+        TableColumn<PortChannel, Integer> baudColumn = new TableColumn<>("Baud");
+        baudColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getConfig().getBaudRate()));
+
+        TableColumn<PortChannel, String> topicColumn = new TableColumn<>("Topic");
+        topicColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getConfig().getTopic()));
+        topicColumn.setCellFactory(TextFieldTableCell.forTableColumn());
+        topicColumn.setOnEditCommit(e -> e.getRowValue().getConfig().setTopic(e.getNewValue()));
+
+        TableColumn<PortChannel, String> statusColumn = new TableColumn<>("Status");
+        statusColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getStatus().name()));
+
+        TableColumn<PortChannel, String> countColumn = new TableColumn<>("Msgs");
+        countColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(String.format("%d (%.1f/s)",
+                c.getValue().getMessageCount(), c.getValue().getSerialService().getFramesPerSecond())));
+
+        // Answer time of polled indicators (median / 99th percentile) and unanswered requests
+        TableColumn<PortChannel, String> pollColumn = new TableColumn<>("Poll");
+        pollColumn.setCellValueFactory(c -> {
+            PollScheduler scheduler = c.getValue().getSerialService().getPollScheduler();
+            return new ReadOnlyStringWrapper(scheduler == null ? "" : String.format("%.0f/%.0f ms, %d lost",
+                    scheduler.getResponseTimes().getQuantileMillis(0.5),
+                    scheduler.getResponseTimes().getQuantileMillis(0.99), scheduler.getTimeouts()));
+        });
+
+        table.getColumns().add(portColumn);
+        table.getColumns().add(baudColumn);
+        table.getColumns().add(topicColumn);
+        table.getColumns().add(statusColumn);
+        table.getColumns().add(countColumn);
+        table.getColumns().add(pollColumn);
+        return table;
+    }
+
     private VBox createMqttSection() {
         VBox section = new VBox(10);
 
@@ -166,11 +338,22 @@ public class MainView {
         sectionLabel.getStyleClass().add("section-title");
 
         brokerField = new TextField("tcp://18.219.121.50:1883");
-        brokerField.setPromptText("Broker URL");
+        brokerField.setPromptText("Broker URL, or several separated by commas for failover");
 
         topicField = new TextField("sensor/weight");
         topicField.setPromptText("Topic");
 
+        payloadFieldsField = new TextField(PayloadSchema.DEFAULT_FIELDS);
+        payloadFieldsField.setPromptText("timestamp,deviceId,port,weight,unit,type,stability,stable");
+
+        deviceIdField = new TextField();
+        deviceIdField.setPromptText("Device ID (optional)");
+
+        payloadFormatComboBox = new ComboBox<>();
+        payloadFormatComboBox.getItems().addAll(PayloadFormat.values());
+        payloadFormatComboBox.getSelectionModel().select(PayloadFormat.JSON);
+        payloadFormatComboBox.setMaxWidth(Double.MAX_VALUE);
+
 //        usernameField = new TextField("bahati");
 //        usernameField.setPromptText("Username");
         usernameField = new PasswordField();
@@ -181,6 +364,76 @@ public class MainView {
         passwordField.setText("We1ght@RDr");
         passwordField.setPromptText("Password");
 
+        overflowPolicyComboBox = new ComboBox<>();
+        overflowPolicyComboBox.getItems().addAll(OverflowPolicy.values());
+        overflowPolicyComboBox.getSelectionModel().select(publishPipeline.getOverflowPolicy());
+        overflowPolicyComboBox.setMaxWidth(Double.MAX_VALUE);
+
+        replayRateSpinner = new Spinner<>(1, 10000, bridge.getReplayRatePerSecond(), 10);
+        replayRateSpinner.setEditable(true);
+        replayRateSpinner.setMaxWidth(Double.MAX_VALUE);
+        replayRateSpinner.valueProperty().addListener((obs, oldValue, newValue) ->
+                bridge.setReplayRatePerSecond(newValue));
+
+        publishModeComboBox = new ComboBox<>();
+        publishModeComboBox.getItems().addAll(PublishMode.values());
+        publishModeComboBox.getSelectionModel().select(mqttService.getPublishMode());
+        publishModeComboBox.setMaxWidth(Double.MAX_VALUE);
+        publishModeComboBox.setOnAction(e -> mqttService.setPublishMode(publishModeComboBox.getValue()));
+
+        batchCheckBox = new CheckBox("Batch readings into one message");
+        batchSizeSpinner = new Spinner<>(1, 1000, ReadingBatcher.DEFAULT_MAX_MESSAGES);
+        batchSizeSpinner.setEditable(true);
+        batchSizeSpinner.setPrefWidth(100);
+        batchWindowSpinner = new Spinner<>(10, 60000, (int) ReadingBatcher.DEFAULT_MAX_DELAY_MS, 100);
+        batchWindowSpinner.setEditable(true);
+        batchWindowSpinner.setPrefWidth(100);
+        batchBytesSpinner = new Spinner<>(1, 1024, ReadingBatcher.DEFAULT_MAX_BATCH_BYTES / 1024);
+        batchBytesSpinner.setEditable(true);
+        batchBytesSpinner.setPrefWidth(80);
+        batchSizeSpinner.disableProperty().bind(batchCheckBox.selectedProperty().not());
+        batchWindowSpinner.disableProperty().bind(batchCheckBox.selectedProperty().not());
+        batchBytesSpinner.disableProperty().bind(batchCheckBox.selectedProperty().not());
+
+        HBox batchBox = new HBox(10);
+        batchBox.setAlignment(Pos.CENTER_LEFT);
+        batchBox.getChildren().addAll(new Label("Max:"), batchSizeSpinner, new Label("ms:"), batchWindowSpinner,
+                new Label("KiB:"), batchBytesSpinner);
+
+        filterCheckBox = new CheckBox("Publish only when weight changes");
+        deadbandSpinner = new Spinner<>(0.0, 100000.0, ReadingFilter.DEFAULT_DEADBAND, 0.01);
+        deadbandSpinner.setEditable(true);
+        deadbandSpinner.setPrefWidth(100);
+        heartbeatSpinner = new Spinner<>(1, 3600, (int) (ReadingFilter.DEFAULT_HEARTBEAT_MS / 1000));
+        heartbeatSpinner.setEditable(true);
+        heartbeatSpinner.setPrefWidth(100);
+        deadbandSpinner.disableProperty().bind(filterCheckBox.selectedProperty().not());
+        heartbeatSpinner.disableProperty().bind(filterCheckBox.selectedProperty().not());
+
+        HBox filterBox = new HBox(10);
+        filterBox.setAlignment(Pos.CENTER_LEFT);
+        filterBox.getChildren().addAll(new Label("Band:"), deadbandSpinner, new Label("Beat s:"), heartbeatSpinner);
+
+        aggregateCheckBox = new CheckBox("Publish window statistics to <topic>/stats");
+        windowModeComboBox = new ComboBox<>();
+        windowModeComboBox.getItems().addAll(WindowMode.values());
+        windowModeComboBox.getSelectionModel().select(readingAggregator.getMode());
+        windowSpinner = new Spinner<>(1, 86400, (int) (ReadingAggregator.DEFAULT_WINDOW_MS / 1000));
+        windowSpinner.setEditable(true);
+        windowSpinner.setPrefWidth(80);
+        slideSpinner = new Spinner<>(1, 86400, (int) (ReadingAggregator.DEFAULT_SLIDE_MS / 1000));
+        slideSpinner.setEditable(true);
+        slideSpinner.setPrefWidth(80);
+        windowModeComboBox.disableProperty().bind(aggregateCheckBox.selectedProperty().not());
+        windowSpinner.disableProperty().bind(aggregateCheckBox.selectedProperty().not());
+        slideSpinner.disableProperty().bind(aggregateCheckBox.selectedProperty().not()
+                .or(windowModeComboBox.valueProperty().isNotEqualTo(WindowMode.SLIDING)));
+
+        HBox aggregateBox = new HBox(10);
+        aggregateBox.setAlignment(Pos.CENTER_LEFT);
+        aggregateBox.getChildren().addAll(windowModeComboBox, new Label("s:"), windowSpinner,
+                new Label("Slide s:"), slideSpinner);
+
         connectButton = new Button("Connect to Broker");
         FontIcon connectIcon = new FontIcon(MaterialDesignL.LAN_CONNECT);
         connectButton.setGraphic(connectIcon);
@@ -191,8 +444,17 @@ public class MainView {
                 sectionLabel,
                 new Label("Broker:"), brokerField,
                 new Label("Topic:"), topicField,
+                new Label("Payload fields:"), payloadFieldsField,
+                new Label("Device ID:"), deviceIdField,
+                new Label("Payload format:"), payloadFormatComboBox,
                 new Label("Username:"), usernameField,
                 new Label("Password:"), passwordField,
+                new Label("Publish mode:"), publishModeComboBox,
+                new Label("When publish queue is full:"), overflowPolicyComboBox,
+                new Label("Outbox replay (messages/s):"), replayRateSpinner,
+                batchCheckBox, batchBox,
+                filterCheckBox, filterBox,
+                aggregateCheckBox, aggregateBox,
                 connectButton
         );
 
@@ -224,13 +486,17 @@ public class MainView {
         startTimeLabel = new Label("Start: N/A");
         stopTimeLabel = new Label("Stop: N/A");
         messagesCountLabel = new Label("Messages: 0");
+        throughputLabel = new Label("Throughput: 0.0 msg/s");
+        suppressedLabel = new Label("Suppressed: 0");
 
         startTimeLabel.getStyleClass().add("info-label");
         stopTimeLabel.getStyleClass().add("info-label");
         messagesCountLabel.getStyleClass().add("info-label");
+        throughputLabel.getStyleClass().add("info-label");
+        suppressedLabel.getStyleClass().add("info-label");
 
         section.getChildren().addAll(sessionLabel, startTimeLabel,
-                stopTimeLabel, messagesCountLabel);
+                stopTimeLabel, messagesCountLabel, throughputLabel, suppressedLabel);
         return section;
     }
 
@@ -238,57 +504,98 @@ public class MainView {
         VBox centerContent = new VBox(15);
         centerContent.setPadding(new Insets(20));
 
+        // Trend Section
+        VBox trendSection = new VBox(10);
+        Label trendLabel = new Label("Weight Trend");
+        trendLabel.getStyleClass().add("section-title");
+
+        weightChart = new WeightChart(WeightChart.DEFAULT_CAPACITY);
+        weightChart.getView().setPrefHeight(220);
+
+        Button clearTrendButton = new Button("Clear");
+        clearTrendButton.setGraphic(new FontIcon(MaterialDesignD.DELETE_SWEEP));
+        clearTrendButton.setOnAction(e -> weightChart.clear());
+
+        HBox trendHeader = new HBox(10);
+        trendHeader.setAlignment(Pos.CENTER_LEFT);
+        Region trendSpacer = new Region();
+        HBox.setHgrow(trendSpacer, Priority.ALWAYS);
+        trendHeader.getChildren().addAll(trendLabel, trendSpacer, new Label("Port:"), weightChart.getPortSelector(),
+                new Label("Span:"), weightChart.getSpanSelector(), clearTrendButton);
+
+        trendSection.getChildren().addAll(trendHeader, weightChart.getView());
+
         // Data Display Section
         VBox dataSection = new VBox(10);
         Label dataLabel = new Label("Received Data");
         dataLabel.getStyleClass().add("section-title");
 
-        dataTextArea = new TextArea();
-        dataTextArea.setEditable(false);
-        dataTextArea.setPromptText("Serial data will appear here...");
-        dataTextArea.setPrefHeight(250);
-        dataTextArea.getStyleClass().add("data-area");
+        dataView = new BoundedLogView(BoundedLogView.DEFAULT_CAPACITY);
+        ListView<String> dataList = dataView.getView();
+        dataList.setPlaceholder(new Label("Serial data will appear here..."));
+        dataList.setPrefHeight(250);
+        dataList.getStyleClass().add("data-area");
 
         Button clearDataButton = new Button("Clear");
         FontIcon clearIcon = new FontIcon(MaterialDesignD.DELETE_SWEEP);
         clearDataButton.setGraphic(clearIcon);
-        clearDataButton.setOnAction(e -> dataTextArea.clear());
+        clearDataButton.setOnAction(e -> dataView.clear());
+
+        Button historyButton = new Button("History");
+        historyButton.setGraphic(new FontIcon(MaterialDesignH.HISTORY));
+        historyButton.setDisable(bridge.getReadingStore() == null);
+        historyButton.setOnAction(e -> showHistory());
+
+        // Retention cap for both panes: older lines are evicted
+        Spinner<Integer> retentionSpinner = new Spinner<>(100, 100000, BoundedLogView.DEFAULT_CAPACITY, 500);
+        retentionSpinner.setEditable(true);
+        retentionSpinner.setPrefWidth(100);
+        retentionSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
+            dataView.setCapacity(newValue);
+            logView.setCapacity(newValue);
+        });
 
         HBox dataHeader = new HBox(10);
         dataHeader.setAlignment(Pos.CENTER_LEFT);
         Region dataSpacer = new Region();
         HBox.setHgrow(dataSpacer, Priority.ALWAYS);
-        dataHeader.getChildren().addAll(dataLabel, dataSpacer, clearDataButton);
+        dataHeader.getChildren().addAll(dataLabel, dataSpacer, new Label("Keep lines:"), retentionSpinner,
+                historyButton, clearDataButton);
 
-        dataSection.getChildren().addAll(dataHeader, dataTextArea);
-        VBox.setVgrow(dataTextArea, Priority.ALWAYS);
+        dataSection.getChildren().addAll(dataHeader, dataList);
+        VBox.setVgrow(dataList, Priority.ALWAYS);
 
         // Log Section
         VBox logSection = new VBox(10);
         Label logLabel = new Label("Application Logs");
         logLabel.getStyleClass().add("section-title");
 
-        logTextArea = new TextArea();
-        logTextArea.setEditable(false);
-        logTextArea.setPromptText("Application logs will appear here...");
-        logTextArea.setPrefHeight(200);
-        logTextArea.getStyleClass().add("log-area");
+        logView = new BoundedLogView(BoundedLogView.DEFAULT_CAPACITY);
+        ListView<String> logList = logView.getView();
+        logList.setPlaceholder(new Label("Application logs will appear here..."));
+        logList.setPrefHeight(200);
+        logList.getStyleClass().add("log-area");
 
         Button clearLogButton = new Button("Clear");
         FontIcon clearLogIcon = new FontIcon(MaterialDesignD.DELETE_SWEEP);
         clearLogButton.setGraphic(clearLogIcon);
-        clearLogButton.setOnAction(e -> logTextArea.clear());
+        clearLogButton.setOnAction(e -> logView.clear());
 
         HBox logHeader = new HBox(10);
         logHeader.setAlignment(Pos.CENTER_LEFT);
         Region logSpacer = new Region();
         HBox.setHgrow(logSpacer, Priority.ALWAYS);
-        logHeader.getChildren().addAll(logLabel, logSpacer, clearLogButton);
+        ComboBox<LogLevel> logLevelComboBox = new ComboBox<>();
+        logLevelComboBox.getItems().addAll(LogLevel.values());
+        logLevelComboBox.getSelectionModel().select(logManager.getLevel());
+        logLevelComboBox.setOnAction(e -> logManager.setLevel(logLevelComboBox.getValue()));
+
+        logHeader.getChildren().addAll(logLabel, logSpacer, new Label("Level:"), logLevelComboBox, clearLogButton);
 
-        logSection.getChildren().addAll(logHeader, logTextArea);
-        VBox.setVgrow(logTextArea, Priority.ALWAYS);
+        logSection.getChildren().addAll(logHeader, logList);
+        VBox.setVgrow(logList, Priority.ALWAYS);
 
-        centerContent.getChildren().addAll(dataSection, logSection);
+        centerContent.getChildren().addAll(trendSection, dataSection, logSection);
         VBox.setVgrow(dataSection, Priority.ALWAYS);
 
         ScrollPane scrollPane = new ScrollPane(centerContent);
@@ -302,6 +609,22 @@ public class MainView {
         return scrollPane;
     }
 
+    private void showHistory() {
+        if (historyStage == null) {
+            historyView = new HistoryView(bridge.getReadingStore());
+            Scene scene = new Scene(historyView.getRoot(), 760, 500);
+            scene.getStylesheets().addAll(root.getScene().getStylesheets());
+            historyStage = new Stage();
+            historyStage.initOwner(root.getScene().getWindow());
+            historyStage.setTitle("Reading History");
+            historyStage.setScene(scene);
+        } else {
+            historyView.refreshPorts();
+        }
+        historyStage.show();
+        historyStage.toFront();
+    }
+
     private HBox createBottomBar() {
         HBox bottomBar = new HBox(15);
         bottomBar.getStyleClass().add("bottom-bar");
@@ -321,18 +644,26 @@ public class MainView {
         connectButton.setOnAction(e -> handleMqttConnect());
         startButton.setOnAction(e -> handleStartStop());
 
-        // Setup log callback
-        logManager.setLogCallback(message ->
-                Platform.runLater(() -> {
-                    logTextArea.appendText(message + "\n");
-                    logTextArea.setScrollTop(Double.MAX_VALUE);
-                })
-        );
+        // Setup log callback: lines are queued and shown on the next frame
+        logManager.setLogCallback(logView::append);
+
+        // Message counter is refreshed once per frame instead of once per message
+        counterTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                long count = messageCount.get();
+                if (count != displayedMessageCount) {
+                    displayedMessageCount = count;
+                    messagesCountLabel.setText("Messages: " + count);
+                }
+            }
+        };
+        counterTimer.start();
     }
 
     private void refreshPortList() {
         portComboBox.getItems().clear();
-        portComboBox.getItems().addAll(serialService.getAvailablePorts());
+        portComboBox.getItems().addAll(portManager.getAvailablePorts());
 
         if (!portComboBox.getItems().isEmpty()) {
             portComboBox.getSelectionModel().selectFirst();
@@ -364,7 +695,7 @@ public class MainView {
                 updateMqttConnectionStatus(true);
                 connectButton.setText("Disconnect from Broker");
                 startButton.setDisable(false);
-                logManager.info("Connected to MQTT broker: " + broker);
+                logManager.info("Connected to MQTT broker: " + mqttService.getCurrentBroker());
                 updateStatus("Connected to MQTT broker");
             } catch (Exception ex) {
                 showError("Failed to connect to MQTT broker: " + ex.getMessage());
@@ -373,46 +704,143 @@ public class MainView {
         }
     }
 
-    private void handleStartStop() {
-        if (!isRunning) {
-            String selectedPort = portComboBox.getValue();
-            if (selectedPort == null) {
-                showError("Please select a COM port");
-                return;
-            }
+    private void handleAddPort() {
+        String selectedPort = portComboBox.getValue();
+        if (selectedPort == null) {
+            showError("Please select a COM port");
+            return;
+        }
 
-            try {
-                serialService.connect(selectedPort, 9600);
-                serialService.setDataCallback(this::handleSerialData);
+        try {
+            addPort(selectedPort);
+        } catch (Exception ex) {
+            showError(ex.getMessage());
+        }
+    }
 
-                sessionStartTime = LocalDateTime.now();
-                messageCount = 0;
-                updateSessionInfo();
+    private void addPort(String portName) throws Exception {
+        // Each port publishes under its own sub-topic of the configured base topic
+        PortConfig config = new PortConfig(portName, topicField.getText() + "/" + portName);
+        config.setBaudRate(baudRateComboBox.getValue());
+        config.setReadMode(readModeComboBox.getValue());
+        config.setFraming(framingComboBox.getValue());
+        if (framingComboBox.getValue() == Framing.FIXED_LENGTH) {
+            config.setFrameLength(frameLengthSpinner.getValue());
+        }
 
-                isRunning = true;
-                startButton.setText("Stop Monitoring");
-                startButton.getStyleClass().remove("success-button");
-                startButton.getStyleClass().add("danger-button");
-                FontIcon stopIcon = new FontIcon(MaterialDesignS.STOP);
-                startButton.setGraphic(stopIcon);
+        PortChannel channel = portManager.addPort(config);
+        portTable.getItems().add(channel);
+        logManager.info("Port added: " + config);
+    }
 
-                portComboBox.setDisable(true);
-                connectButton.setDisable(true);
+    private void handleRemovePort() {
+        PortChannel selected = portTable.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            portManager.removePort(selected.getPortName());
+            portTable.getItems().remove(selected);
+            logManager.info("Port removed: " + selected.getPortName());
+        }
+    }
 
-                updateStatus("Monitoring started on " + selectedPort);
-                logManager.info("Serial monitoring started on port: " + selectedPort);
+    private void handleStartStop() {
+        if (!isRunning) {
+            if (portManager.isEmpty()) {
+                // Single-port shortcut: monitor the selected port without adding it first
+                String selectedPort = portComboBox.getValue();
+                if (selectedPort == null) {
+                    showError("Please select a COM port");
+                    return;
+                }
+                try {
+                    addPort(selectedPort);
+                } catch (Exception ex) {
+                    showError(ex.getMessage());
+                    return;
+                }
+            }
 
-            } catch (Exception ex) {
-                showError("Failed to start monitoring: " + ex.getMessage());
-                logManager.error("Failed to start serial monitoring: " + ex.getMessage());
+            try {
+                bridge.setPayloadSchema(PayloadSchema.parse(payloadFieldsField.getText(), deviceIdField.getText(),
+                        payloadFormatComboBox.getValue()));
+            } catch (IllegalArgumentException ex) {
+                showError(ex.getMessage());
+                return;
             }
+            publishPipeline.setOverflowPolicy(overflowPolicyComboBox.getValue());
+            readingBatcher.setEnabled(batchCheckBox.isSelected());
+            readingBatcher.setMaxMessages(batchSizeSpinner.getValue());
+            readingBatcher.setMaxDelayMs(batchWindowSpinner.getValue());
+            readingBatcher.setMaxBatchBytes(batchBytesSpinner.getValue() * 1024);
+            readingFilter.setEnabled(filterCheckBox.isSelected());
+            readingFilter.setDeadband(deadbandSpinner.getValue());
+            readingFilter.setHeartbeatMs(heartbeatSpinner.getValue() * 1000L);
+            readingAggregator.setEnabled(aggregateCheckBox.isSelected());
+            readingAggregator.setMode(windowModeComboBox.getValue());
+            readingAggregator.setWindowMs(windowSpinner.getValue() * 1000L);
+            readingAggregator.setSlideMs(slideSpinner.getValue() * 1000L);
+
+            int started = bridge.start();
+            portTable.refresh();
+            if (started == 0) {
+                showError("Failed to start monitoring: no port could be opened");
+                return;
+            }
+
+            sessionStartTime = LocalDateTime.now();
+            messageCount.set(0);
+            updateSessionInfo();
+
+            isRunning = true;
+            startButton.setText("Stop Monitoring");
+            startButton.getStyleClass().remove("success-button");
+            startButton.getStyleClass().add("danger-button");
+            FontIcon stopIcon = new FontIcon(MaterialDesignS.STOP);
+            startButton.setGraphic(stopIcon);
+
+            setPortControlsDisabled(true);
+            overflowPolicyComboBox.setDisable(true);
+            batchCheckBox.setDisable(true);
+            filterCheckBox.setDisable(true);
+            aggregateCheckBox.setDisable(true);
+            connectButton.setDisable(true);
+
+            statsTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshPortStats()));
+            statsTimeline.setCycleCount(Timeline.INDEFINITE);
+            statsTimeline.play();
+
+            updateStatus("Monitoring started on " + started + " of " + portTable.getItems().size() + " ports");
         } else {
             stopMonitoring();
         }
     }
 
+    private void setPortControlsDisabled(boolean disabled) {
+        portComboBox.setDisable(disabled);
+        readModeComboBox.setDisable(disabled);
+        baudRateComboBox.setDisable(disabled);
+        framingComboBox.setDisable(disabled);
+        addPortButton.setDisable(disabled);
+        removePortButton.setDisable(disabled);
+        portTable.setEditable(!disabled);
+        topicField.setDisable(disabled);
+        payloadFieldsField.setDisable(disabled);
+        deviceIdField.setDisable(disabled);
+        payloadFormatComboBox.setDisable(disabled);
+    }
+
+    private void refreshPortStats() {
+        portTable.refresh();
+        throughputLabel.setText(String.format("Throughput: %.1f msg/s", portManager.getAggregateFramesPerSecond()));
+        suppressedLabel.setText("Suppressed: " + readingFilter.getSuppressedCount());
+    }
+
     private void stopMonitoring() {
-        serialService.disconnect();
+        bridge.stop();
+
+        if (statsTimeline != null) {
+            statsTimeline.stop();
+        }
+        refreshPortStats();
 
         isRunning = false;
         startButton.setText("Start Monitoring");
@@ -421,39 +849,26 @@ public class MainView {
         FontIcon playIcon = new FontIcon(MaterialDesignP.PLAY);
         startButton.setGraphic(playIcon);
 
-        portComboBox.setDisable(false);
+        setPortControlsDisabled(false);
+        overflowPolicyComboBox.setDisable(false);
+        batchCheckBox.setDisable(false);
+        filterCheckBox.setDisable(false);
+        aggregateCheckBox.setDisable(false);
         connectButton.setDisable(false);
 
         stopTimeLabel.setText("Stop: " + LocalDateTime.now().format(TIME_FORMATTER));
 
         updateStatus("Monitoring stopped");
-        logManager.info("Serial monitoring stopped. Total messages: " + messageCount);
+        logManager.info("Serial monitoring stopped. Total messages: " + messageCount.get());
+        bridge.logStatistics();
     }
 
-    private void handleSerialData(String data) {
-        Platform.runLater(() -> {
-            String timestamp = LocalDateTime.now().format(TIME_FORMATTER);
-            String displayData = String.format("[%s] WEIGHT: %s", timestamp, data);
-
-            dataTextArea.appendText(displayData + "\n");
-            dataTextArea.setScrollTop(Double.MAX_VALUE);
-
-            messageCount++;
-            messagesCountLabel.setText("Messages: " + messageCount);
-
-            // Publish to MQTT
-            if (mqttService.isConnected()) {
-                try {
-                    String topic = topicField.getText();
-                    String payload = String.format("{\"timestamp\":\"%s\",\"weight\":\"%s\"}",
-                            timestamp, data);
-                    mqttService.publish(topic, payload);
-                    logManager.debug("Published to MQTT: " + payload);
-                } catch (Exception ex) {
-                    logManager.error("Failed to publish to MQTT: " + ex.getMessage());
-                }
-            }
-        });
+    // Called on the port's reader thread after the bridge handed the reading to the
+    // publish pipeline; the display line and trend point are picked up on the next frame
+    private void handleSerialData(PortChannel channel, WeightReading reading, String timestamp) {
+        dataView.append("[" + timestamp + "] " + channel.getPortName() + " WEIGHT: " + reading);
+        weightChart.append(channel.getPortName(), reading);
+        messageCount.incrementAndGet();
     }
 
     private void updateMqttConnectionStatus(boolean connected) {
@@ -474,7 +889,7 @@ public class MainView {
         if (sessionStartTime != null) {
             startTimeLabel.setText("Start: " + sessionStartTime.format(TIME_FORMATTER));
         }
-        messagesCountLabel.setText("Messages: " + messageCount);
+        messagesCountLabel.setText("Messages: " + messageCount.get());
         stopTimeLabel.setText("Stop: N/A");
     }
 
@@ -496,9 +911,15 @@ public class MainView {
         if (isRunning) {
             stopMonitoring();
         }
-        if (mqttService.isConnected()) {
-            mqttService.disconnect();
+        if (historyStage != null) {
+            historyStage.close();
         }
+        bridge.shutdown();
+        logManager.setLogCallback(null);
+        counterTimer.stop();
+        dataView.stop();
+        weightChart.stop();
+        logView.stop();
     }
 
     public BorderPane getRoot() {
@@ -0,0 +1,100 @@
+package org.serial.serial.ui;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-capacity observable list: appending past the capacity evicts from the head in O(1)
+// per element instead of shifting a backing array. FX thread only.
+class RingBufferList<E> extends ObservableListBase<E> {
+    private Object[] items;
+    private int start;
+    private int size;
+
+    RingBufferList(int capacity) {
+        items = new Object[capacity];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return (E) items[(start + index) % items.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    // Appends the batch as one change, evicting the oldest entries as needed
+    void appendAll(List<E> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int capacity = items.length;
+        int skip = Math.max(0, batch.size() - capacity);
+        int incoming = batch.size() - skip;
+        int evict = Math.max(0, size + incoming - capacity);
+
+        beginChange();
+        if (evict > 0) {
+            nextRemove(0, removeHead(evict));
+        }
+        int from = size;
+        for (int i = skip; i < batch.size(); i++) {
+            items[(start + size) % capacity] = batch.get(i);
+            size++;
+        }
+        nextAdd(from, size);
+        endChange();
+    }
+
+    // Changes the capacity, keeping the newest entries
+    void setCapacity(int capacity) {
+        if (capacity == items.length) {
+            return;
+        }
+        beginChange();
+        if (size > capacity) {
+            nextRemove(0, removeHead(size - capacity));
+        }
+        Object[] resized = new Object[capacity];
+        for (int i = 0; i < size; i++) {
+            resized[i] = items[(start + i) % items.length];
+        }
+        items = resized;
+        start = 0;
+        endChange();
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        beginChange();
+        nextRemove(0, removeHead(size));
+        endChange();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> removeHead(int count) {
+        List<E> removed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % items.length;
+            removed.add((E) items[index]);
+            items[index] = null;
+        }
+        start = (start + count) % items.length;
+        size -= count;
+        return removed;
+    }
+}
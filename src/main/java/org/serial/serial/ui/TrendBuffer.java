@@ -0,0 +1,176 @@
+package org.serial.serial.ui;
+
+// Fixed-capacity ring of (timestamp, weight) pairs in primitive arrays, overwriting the
+// oldest pair when full, so a trend costs the same heap after a minute as after a day.
+// Readers do not copy it: decimate() picks at most 'threshold' points of a time range
+// with Largest-Triangle-Three-Buckets, which keeps the peaks and dips that plain
+// striding would skip. Timestamps are expected in arrival order.
+// There is no lock, so a long decimate() on the FX thread never holds up the reader
+// thread: the single appender publishes each point through the volatile 'written' count
+// and readers work on a snapshot of it. The arrays keep SLACK slots beyond the capacity,
+// so points appended during a pass do not overwrite the snapshot; a pass that was
+// lapped anyway is redone.
+public class TrendBuffer {
+    private static final int SLACK = 1024;
+
+    private final int capacity;
+    private final long[] times;
+    private final double[] values;
+    // Points ever appended; point n lives in slot n % times.length
+    private volatile long written;
+    // 'written' at the last clear(); older points are no longer shown
+    private volatile long clearedAt;
+    private volatile long clears;
+    private volatile String unit = "";
+
+    public TrendBuffer(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        this.times = new long[this.capacity + SLACK];
+        this.values = new double[times.length];
+    }
+
+    // Called on the port's reader thread only, so there is a single appender
+    public void append(long timeMillis, double value) {
+        long n = written;
+        int slot = (int) (n % times.length);
+        times[slot] = timeMillis;
+        values[slot] = value;
+        written = n + 1;
+    }
+
+    // Changes with every append, so a renderer can skip frames without new data
+    public long getVersion() {
+        return written + clears;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public int size() {
+        long end = written;
+        return (int) (end - first(end));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getLastTime() {
+        long end = written;
+        return end == first(end) ? Long.MIN_VALUE : times[(int) ((end - 1) % times.length)];
+    }
+
+    public void clear() {
+        clearedAt = written;
+        clears++;
+    }
+
+    // Writes the points from fromMillis on, reduced to at most 'threshold' (>= 3) of them,
+    // into the given arrays and returns how many were written
+    public int decimate(long fromMillis, int threshold, long[] outTimes, double[] outValues) {
+        while (true) {
+            long end = written;
+            long first = first(end);
+            int count = decimate((int) (first % times.length), (int) (end - first), fromMillis, threshold,
+                    outTimes, outValues);
+            if (written - end < SLACK) {
+                return count;
+            }
+        }
+    }
+
+    // Oldest point still shown when 'end' points have been appended
+    private long first(long end) {
+        return Math.min(end, Math.max(clearedAt, end - capacity));
+    }
+
+    // One pass over the 'size' points from slot 'head' on
+    private int decimate(int head, int size, long fromMillis, int threshold, long[] outTimes, double[] outValues) {
+        int start = firstAtOrAfter(head, size, fromMillis);
+        int count = size - start;
+        if (count <= threshold) {
+            for (int i = 0; i < count; i++) {
+                int index = index(head, start + i);
+                outTimes[i] = times[index];
+                outValues[i] = values[index];
+            }
+            return count;
+        }
+
+        // x is relative to the first point so that millisecond timestamps keep their precision
+        long origin = times[index(head, start)];
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int selected = 0;
+        int written = 0;
+        outTimes[written] = origin;
+        outValues[written++] = values[index(head, start)];
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third corner of the triangle
+            int nextFrom = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextTo = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                int index = index(head, start + i);
+                averageX += times[index] - origin;
+                averageY += values[index];
+            }
+            int nextCount = Math.max(1, nextTo - nextFrom);
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            int selectedIndex = index(head, start + selected);
+            double selectedX = times[selectedIndex] - origin;
+            double selectedY = values[selectedIndex];
+            int from = (int) (bucket * bucketSize) + 1;
+            int to = (int) ((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int best = from;
+            for (int i = from; i < to; i++) {
+                int index = index(head, start + i);
+                // Twice the triangle area; the factor does not change the maximum
+                double area = Math.abs((selectedX - averageX) * (values[index] - selectedY)
+                        - (selectedX - (times[index] - origin)) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            int bestIndex = index(head, start + best);
+            outTimes[written] = times[bestIndex];
+            outValues[written++] = values[bestIndex];
+            selected = best;
+        }
+
+        int lastIndex = index(head, start + count - 1);
+        outTimes[written] = times[lastIndex];
+        outValues[written++] = values[lastIndex];
+        return written;
+    }
+
+    // Position (0 = oldest) of the first point at or after the given time
+    private int firstAtOrAfter(int head, int size, long timeMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[index(head, middle)] < timeMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int index(int head, int position) {
+        int index = head + position;
+        return index >= times.length ? index - times.length : index;
+    }
+}
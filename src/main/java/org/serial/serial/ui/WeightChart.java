@@ -0,0 +1,229 @@
+package org.serial.serial.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ComboBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+import org.serial.serial.model.WeightReading;
+import org.serial.serial.model.WeightUnit;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live weight trend of one port, drawn on a Canvas: however many readings the span
+// covers, each frame strokes at most one point per pixel column (LTTB-decimated from
+// the port's TrendBuffer), so the scene graph never grows and redraws only happen on
+// frames with new data or a new size.
+public class WeightChart {
+    // An hour at 100 readings per second, 5.5 MiB per port
+    public static final int DEFAULT_CAPACITY = 360_000;
+
+    private static final String[] SPAN_LABELS = {"1 min", "10 min", "1 h", "All"};
+    private static final long[] SPAN_MS = {60_000, 600_000, 3_600_000, Long.MAX_VALUE};
+    private static final double MARGIN_LEFT = 60;
+    private static final double MARGIN_RIGHT = 10;
+    private static final double MARGIN_TOP = 10;
+    private static final double MARGIN_BOTTOM = 20;
+    private static final int GRID_LINES = 4;
+    private static final DateTimeFormatter AXIS_FORMATTER =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final int capacity;
+    private final Map<String, TrendBuffer> buffers = new ConcurrentHashMap<>();
+    private final Pane pane = new Pane();
+    private final Canvas canvas = new Canvas();
+    private final ComboBox<String> portComboBox = new ComboBox<>();
+    private final ComboBox<String> spanComboBox = new ComboBox<>();
+    private final AnimationTimer renderTimer;
+
+    // FX thread only
+    private long[] pointTimes = new long[0];
+    private double[] pointValues = new double[0];
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private TrendBuffer drawnBuffer;
+    private long drawnVersion = -1;
+    private boolean dirty = true;
+    private int knownPorts;
+
+    public WeightChart(int capacity) {
+        this.capacity = capacity;
+
+        pane.getChildren().add(canvas);
+        pane.setMinHeight(120);
+        canvas.widthProperty().bind(pane.widthProperty());
+        canvas.heightProperty().bind(pane.heightProperty());
+        canvas.widthProperty().addListener((obs, oldValue, newValue) -> dirty = true);
+        canvas.heightProperty().addListener((obs, oldValue, newValue) -> dirty = true);
+
+        portComboBox.setPrefWidth(140);
+        portComboBox.setPromptText("No readings");
+        portComboBox.setOnAction(e -> dirty = true);
+        spanComboBox.getItems().addAll(SPAN_LABELS);
+        spanComboBox.getSelectionModel().select(1);
+        spanComboBox.setOnAction(e -> dirty = true);
+
+        renderTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                render();
+            }
+        };
+        renderTimer.start();
+    }
+
+    // Thread-safe; invalid readings leave a flat line rather than a spike to zero
+    public void append(String port, WeightReading reading) {
+        if (!reading.isValid()) {
+            return;
+        }
+        TrendBuffer buffer = buffers.get(port);
+        if (buffer == null) {
+            buffer = buffers.computeIfAbsent(port, p -> new TrendBuffer(capacity));
+        }
+        if (reading.getUnit() != WeightUnit.UNKNOWN) {
+            buffer.setUnit(reading.getUnit().getSymbol());
+        }
+        buffer.append(reading.getTimestampMillis(), reading.toDouble());
+    }
+
+    public void clear() {
+        for (TrendBuffer buffer : buffers.values()) {
+            buffer.clear();
+        }
+    }
+
+    public void stop() {
+        renderTimer.stop();
+    }
+
+    public Pane getView() {
+        return pane;
+    }
+
+    public ComboBox<String> getPortSelector() {
+        return portComboBox;
+    }
+
+    public ComboBox<String> getSpanSelector() {
+        return spanComboBox;
+    }
+
+    private void render() {
+        if (buffers.size() != knownPorts) {
+            refreshPorts();
+        }
+        String port = portComboBox.getValue();
+        TrendBuffer buffer = port != null ? buffers.get(port) : null;
+        if (buffer != drawnBuffer || (buffer != null && buffer.getVersion() != drawnVersion)) {
+            dirty = true;
+        }
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        drawnBuffer = buffer;
+        drawnVersion = buffer != null ? buffer.getVersion() : -1;
+        draw(buffer);
+    }
+
+    private void refreshPorts() {
+        List<String> ports = new ArrayList<>(buffers.keySet());
+        Collections.sort(ports);
+        knownPorts = ports.size();
+        String selected = portComboBox.getValue();
+        portComboBox.getItems().setAll(ports);
+        if (selected != null && ports.contains(selected)) {
+            portComboBox.setValue(selected);
+        } else if (!ports.isEmpty()) {
+            portComboBox.getSelectionModel().selectFirst();
+        }
+    }
+
+    private void draw(TrendBuffer buffer) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, width, height);
+
+        double plotWidth = width - MARGIN_LEFT - MARGIN_RIGHT;
+        double plotHeight = height - MARGIN_TOP - MARGIN_BOTTOM;
+        if (buffer == null || plotWidth < 10 || plotHeight < 10) {
+            return;
+        }
+
+        int threshold = Math.max(3, (int) plotWidth);
+        ensureCapacity(threshold);
+        long last = buffer.getLastTime();
+        long span = SPAN_MS[Math.max(0, spanComboBox.getSelectionModel().getSelectedIndex())];
+        long from = span == Long.MAX_VALUE ? Long.MIN_VALUE : last - span;
+        int count = buffer.decimate(from, threshold, pointTimes, pointValues);
+        if (count == 0) {
+            return;
+        }
+
+        double min = pointValues[0];
+        double max = pointValues[0];
+        for (int i = 1; i < count; i++) {
+            min = Math.min(min, pointValues[i]);
+            max = Math.max(max, pointValues[i]);
+        }
+        if (max - min < 1e-9) {
+            min -= 1;
+            max += 1;
+        }
+        long start = span == Long.MAX_VALUE ? pointTimes[0] : from;
+        double timeRange = Math.max(1, pointTimes[count - 1] - start);
+
+        // Grid and value axis
+        gc.setStroke(Color.web("#e0e0e0"));
+        gc.setLineWidth(1);
+        gc.setFill(Color.web("#666666"));
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int i = 0; i <= GRID_LINES; i++) {
+            double y = MARGIN_TOP + plotHeight * i / GRID_LINES;
+            gc.strokeLine(MARGIN_LEFT, y, width - MARGIN_RIGHT, y);
+            gc.fillText(String.format("%.2f", max - (max - min) * i / GRID_LINES), MARGIN_LEFT - 5, y);
+        }
+        gc.setTextBaseline(VPos.TOP);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.fillText(AXIS_FORMATTER.format(Instant.ofEpochMilli(start)), MARGIN_LEFT, height - MARGIN_BOTTOM + 4);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.fillText(AXIS_FORMATTER.format(Instant.ofEpochMilli(pointTimes[count - 1])), width - MARGIN_RIGHT,
+                height - MARGIN_BOTTOM + 4);
+
+        for (int i = 0; i < count; i++) {
+            xs[i] = MARGIN_LEFT + (pointTimes[i] - start) / timeRange * plotWidth;
+            ys[i] = MARGIN_TOP + (max - pointValues[i]) / (max - min) * plotHeight;
+        }
+        gc.setStroke(Color.web("#1976D2"));
+        gc.setLineWidth(1.5);
+        gc.strokePolyline(xs, ys, count);
+
+        gc.setFill(Color.web("#333333"));
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(String.format("%.2f %s", pointValues[count - 1], buffer.getUnit()), width - MARGIN_RIGHT,
+                MARGIN_TOP);
+    }
+
+    private void ensureCapacity(int points) {
+        if (pointTimes.length < points) {
+            pointTimes = new long[points];
+            pointValues = new double[points];
+            xs = new double[points];
+            ys = new double[points];
+        }
+    }
+}
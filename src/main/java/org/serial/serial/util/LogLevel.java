@@ -0,0 +1,8 @@
+package org.serial.serial.util;
+
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR
+}
@@ -2,11 +2,29 @@ package org.serial.serial.util;
 
 import java.io.*;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+// Application log in logs/app_<date>.log. The file rolls over at midnight and whenever it
+// reaches maxFileBytes (the full file becomes app_<date>.<n>.log); rolled files are
+// gzipped and retention (maxAgeDays, maxTotalBytes over all log files) is enforced on the
+// log-archiver thread, so the writing thread only ever renames a file.
 public class LogManager {
     private static LogManager instance;
     private static final String LOG_DIR = "logs";
@@ -15,9 +33,48 @@ public class LogManager {
     private static final DateTimeFormatter LOG_TIME_FORMAT =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
+    private static final int RING_CAPACITY = 8192;
+    private static final int DRAIN_BATCH = 512;
+    // Upper bound for an idle writer's sleep, in case the wall clock is changed
+    private static final long MAX_IDLE_PARK_MS = 60_000;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 256L * 1024 * 1024;
+    public static final int DEFAULT_MAX_AGE_DAYS = 30;
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+
     private LocalDate currentLogDate;
+    private Path currentLogPath;
+    private long currentLogBytes;
+    private int nextSegment = 1;
     private BufferedWriter logWriter;
-    private Consumer<String> logCallback;
+    private volatile Consumer<String> logCallback;
+
+    private volatile LogLevel level = LogLevel.INFO;
+    private volatile boolean consoleEnabled = true;
+
+    // Async mode: producers only enqueue, the writer thread formats and writes in batches
+    private volatile boolean async = true;
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private final LogRingBuffer ringBuffer = new LogRingBuffer(RING_CAPACITY);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean writerRunning = false;
+    private volatile Thread writerThread;
+    // Set while the writer is parked with nothing to do; producers unpark it then
+    private volatile boolean writerIdle = false;
+    // When the oldest entry not yet flushed was written, 0 if there is none
+    private long unflushedSinceMillis;
+
+    private volatile long maxFileBytes = DEFAULT_MAX_FILE_BYTES;
+    private volatile long maxTotalBytes = DEFAULT_MAX_TOTAL_BYTES;
+    private volatile int maxAgeDays = DEFAULT_MAX_AGE_DAYS;
+    private final ExecutorService archiver = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "log-archiver");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
 
     private LogManager() {
         try {
@@ -26,6 +83,9 @@ public class LogManager {
         } catch (IOException e) {
             System.err.println("Failed to initialize log manager: " + e.getMessage());
         }
+        // Files left uncompressed by an earlier run, and retention
+        archiver.execute(this::archiveAll);
+        startWriter();
     }
 
     public static synchronized LogManager getInstance() {
@@ -39,21 +99,113 @@ public class LogManager {
         this.logCallback = callback;
     }
 
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
+    public void setConsoleEnabled(boolean consoleEnabled) {
+        this.consoleEnabled = consoleEnabled;
+    }
+
+    // Switching to synchronous mode drains anything still queued first
+    public synchronized void setAsync(boolean async) {
+        if (this.async == async) {
+            return;
+        }
+        if (async) {
+            this.async = true;
+            startWriter();
+        } else {
+            stopWriter();
+            this.async = false;
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    // How long written entries may sit in the file buffer in async mode, busy or idle
+    // (0 = flush every batch)
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // Size at which the current file rolls over
+    public void setMaxFileBytes(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    // Cap on all log files together; the oldest archives go first
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    // Called with the lock held, before every write (sync) or batch (async)
     private void openLogFile() throws IOException {
         LocalDate today = LocalDate.now();
+        boolean sameDay = today.equals(currentLogDate);
+        if (sameDay && currentLogBytes < maxFileBytes) {
+            return;
+        }
 
-        // Check if we need to rotate the log file
-        if (currentLogDate == null || !currentLogDate.equals(today)) {
+        Path finished = null;
+        if (currentLogPath != null) {
             closeLogFile();
+            logWriter = null;
+            finished = currentLogPath;
+            if (sameDay) {
+                // The full file becomes the next numbered segment of the day
+                finished = nextSegmentPath(today);
+                Files.move(currentLogPath, finished);
+            }
+        }
+        if (!sameDay) {
+            nextSegment = 1;
+        }
 
-            String fileName = String.format("app_%s.log", today.format(FILE_DATE_FORMAT));
-            Path logPath = Paths.get(LOG_DIR, fileName);
+        Path logPath = Paths.get(LOG_DIR, String.format("app_%s.log", today.format(FILE_DATE_FORMAT)));
+        logWriter = new BufferedWriter(new FileWriter(logPath.toFile(), true));
+        currentLogBytes = Files.size(logPath);
+        currentLogPath = logPath;
+        currentLogDate = today;
 
-            logWriter = new BufferedWriter(new FileWriter(logPath.toFile(), true));
-            currentLogDate = today;
+        if (finished != null) {
+            Path archived = finished;
+            archiver.execute(() -> {
+                compress(archived);
+                enforceRetention();
+            });
+        }
+    }
 
-            // Clean up old log files (keep last 30 days)
-            cleanupOldLogs();
+    private Path nextSegmentPath(LocalDate date) {
+        while (true) {
+            Path segment = Paths.get(LOG_DIR, String.format("app_%s.%d.log", date.format(FILE_DATE_FORMAT),
+                    nextSegment++));
+            if (!Files.exists(segment) && !Files.exists(Paths.get(segment + ARCHIVE_SUFFIX))) {
+                return segment;
+            }
         }
     }
 
@@ -65,81 +217,292 @@ public class LogManager {
                 System.err.println("Error closing log file: " + e.getMessage());
             }
         }
+        unflushedSinceMillis = 0;
     }
 
-    private void cleanupOldLogs() {
+    // Archiver thread: app_x.log -> app_x.log.gz, written to a temporary file first so a
+    // crash never leaves a truncated archive behind
+    private void compress(Path source) {
+        if (!Files.exists(source)) {
+            return;
+        }
+        Path target = Paths.get(source + ARCHIVE_SUFFIX);
+        Path temp = Paths.get(target + TEMP_SUFFIX);
         try {
-            LocalDate cutoffDate = LocalDate.now().minusDays(30);
-
-            Files.list(Paths.get(LOG_DIR))
-                    .filter(path -> path.toString().endsWith(".log"))
-                    .filter(path -> {
-                        try {
-                            String fileName = path.getFileName().toString();
-                            String dateStr = fileName.replace("app_", "").replace(".log", "");
-                            LocalDate fileDate = LocalDate.parse(dateStr, FILE_DATE_FORMAT);
-                            return fileDate.isBefore(cutoffDate);
-                        } catch (Exception e) {
-                            return false;
-                        }
-                    })
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                            System.out.println("Deleted old log file: " + path.getFileName());
-                        } catch (IOException e) {
-                            System.err.println("Failed to delete log file: " + path.getFileName());
-                        }
-                    });
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            // Retention goes by the age of the log, not of the archive
+            Files.setLastModifiedTime(temp, Files.getLastModifiedTime(source));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
         } catch (IOException e) {
-            System.err.println("Error during log cleanup: " + e.getMessage());
+            System.err.println("Failed to compress log file " + source.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    // Archiver thread, at startup: compresses what earlier runs left behind (segments and
+    // files of earlier days), then enforces retention. Files rolled over while running are
+    // handed over by openLogFile instead.
+    private void archiveAll() {
+        LocalDate today = LocalDate.now();
+        for (Path path : listLogFiles()) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                deleteLogFile(path);
+            } else if (name.endsWith(".log") && !mayBeOpen(name, today)) {
+                compress(path);
+            }
         }
+        enforceRetention();
     }
 
-    private void log(String level, String message) {
+    // app_<date>.log of today or later may be the writer's file (the writer moves on at
+    // midnight while the archiver runs); numbered segments and earlier days never are
+    private static boolean mayBeOpen(String name, LocalDate today) {
+        if (!name.startsWith("app_") || !name.endsWith(".log")) {
+            return false;
+        }
         try {
-            openLogFile(); // Check if rotation is needed
+            LocalDate date = LocalDate.parse(name.substring(4, name.length() - 4), FILE_DATE_FORMAT);
+            return !date.isBefore(today);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
 
-            String timestamp = LocalDateTime.now().format(LOG_TIME_FORMAT);
-            String logEntry = String.format("[%s] [%s] %s", timestamp, level, message);
+    // Archiver thread: drops files older than maxAgeDays, then the oldest until all log
+    // files together fit in maxTotalBytes. The file being written is never deleted.
+    private void enforceRetention() {
+        List<Path> files = listLogFiles();
+        LocalDate today = LocalDate.now();
+        long cutoffMillis = System.currentTimeMillis() - maxAgeDays * 86_400_000L;
+        List<Path> candidates = new ArrayList<>();
+        Map<Path, Long> modified = new HashMap<>();
+        long total = 0;
+        for (Path path : files) {
+            try {
+                long size = Files.size(path);
+                long lastModified = Files.getLastModifiedTime(path).toMillis();
+                if (mayBeOpen(path.getFileName().toString(), today)) {
+                    total += size;
+                } else if (lastModified < cutoffMillis) {
+                    deleteLogFile(path);
+                } else {
+                    total += size;
+                    candidates.add(path);
+                    modified.put(path, lastModified);
+                }
+            } catch (IOException e) {
+                // Compressed or deleted meanwhile
+            }
+        }
 
-            // Write to file
-            if (logWriter != null) {
-                logWriter.write(logEntry);
-                logWriter.newLine();
-                logWriter.flush();
+        candidates.sort(Comparator.comparingLong(modified::get));
+        for (Path path : candidates) {
+            if (total <= maxTotalBytes) {
+                break;
             }
+            try {
+                long size = Files.size(path);
+                deleteLogFile(path);
+                total -= size;
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
 
-            // Call UI callback
-            if (logCallback != null) {
-                logCallback.accept(logEntry);
+    private List<Path> listLogFiles() {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(Paths.get(LOG_DIR))) {
+            entries.filter(path -> path.getFileName().toString().startsWith("app_"))
+                    .filter(Files::isRegularFile)
+                    .forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("Error listing log files: " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static void deleteLogFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            System.out.println("Deleted old log file: " + path.getFileName());
+        } catch (IOException e) {
+            System.err.println("Failed to delete log file: " + path.getFileName());
+        }
+    }
+
+    private void log(LogLevel messageLevel, String message) {
+        // Filtered entries are dropped before any formatting or allocation
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+
+        if (async && writerRunning) {
+            if (!ringBuffer.offer(messageLevel, message, System.currentTimeMillis())) {
+                droppedCount.incrementAndGet();
+            } else if (writerIdle) {
+                LockSupport.unpark(writerThread);
             }
+            return;
+        }
 
-            // Also print to console for debugging
+        synchronized (this) {
+            try {
+                openLogFile(); // Check if rotation is needed
+                write(messageLevel, message, System.currentTimeMillis());
+                if (logWriter != null) {
+                    logWriter.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(LogLevel messageLevel, String message, long timestampMillis) throws IOException {
+        String timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis),
+                ZoneId.systemDefault()).format(LOG_TIME_FORMAT);
+        String logEntry = "[" + timestamp + "] [" + messageLevel.name() + "] " + message;
+
+        // Write to file
+        if (logWriter != null) {
+            logWriter.write(logEntry);
+            logWriter.newLine();
+            // Characters, not bytes: close enough for the size limit
+            currentLogBytes += logEntry.length() + 1;
+        }
+
+        // Call UI callback
+        Consumer<String> callback = logCallback;
+        if (callback != null) {
+            callback.accept(logEntry);
+        }
+
+        // Also print to console for debugging
+        if (consoleEnabled) {
             System.out.println(logEntry);
+        }
+    }
 
-        } catch (IOException e) {
-            System.err.println("Failed to write log: " + e.getMessage());
+    private synchronized void startWriter() {
+        if (writerRunning) {
+            return;
+        }
+        writerRunning = true;
+        writerThread = new Thread(this::writerLoop, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void stopWriter() {
+        if (!writerRunning) {
+            return;
+        }
+        writerRunning = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writerLoop() {
+        LogRingBuffer.EntryHandler handler = (entryLevel, message, timestamp) -> {
+            try {
+                write(entryLevel, message, timestamp);
+            } catch (IOException e) {
+                System.err.println("Failed to write log: " + e.getMessage());
+            }
+        };
+
+        while (writerRunning || !ringBuffer.isEmpty()) {
+            int drained;
+            long idleMillis = 0;
+            synchronized (this) {
+                try {
+                    openLogFile(); // Rotation is checked once per batch, not per line
+                } catch (IOException e) {
+                    System.err.println("Failed to rotate log: " + e.getMessage());
+                }
+                drained = ringBuffer.drain(handler, DRAIN_BATCH);
+                if (drained > 0 && unflushedSinceMillis == 0) {
+                    unflushedSinceMillis = System.currentTimeMillis();
+                }
+                // Idle or not, entries are flushed once the oldest has waited flushIntervalMs
+                flushIfDue(false);
+                if (drained == 0) {
+                    idleMillis = millisUntilDue();
+                }
+            }
+
+            if (drained == 0 && writerRunning) {
+                writerIdle = true;
+                // An entry offered before the producer could see writerIdle is caught here
+                if (ringBuffer.isEmpty() && writerRunning) {
+                    LockSupport.parkNanos(idleMillis * 1_000_000);
+                }
+                writerIdle = false;
+            }
+        }
+
+        synchronized (this) {
+            flushIfDue(true);
+        }
+    }
+
+    // How long the idle writer may sleep: until the pending flush or the midnight rollover
+    private long millisUntilDue() {
+        long now = System.currentTimeMillis();
+        LocalDate date = currentLogDate != null ? currentLogDate : LocalDate.now();
+        long due = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - now;
+        if (unflushedSinceMillis != 0) {
+            due = Math.min(due, unflushedSinceMillis + flushIntervalMs - now);
+        }
+        return Math.max(1, Math.min(due, MAX_IDLE_PARK_MS));
+    }
+
+    private void flushIfDue(boolean force) {
+        if (unflushedSinceMillis == 0 || logWriter == null) {
+            return;
+        }
+        if (force || System.currentTimeMillis() - unflushedSinceMillis >= flushIntervalMs) {
+            try {
+                logWriter.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to flush log: " + e.getMessage());
+            }
+            unflushedSinceMillis = 0;
         }
     }
 
     public void info(String message) {
-        log("INFO", message);
+        log(LogLevel.INFO, message);
     }
 
     public void debug(String message) {
-        log("DEBUG", message);
+        log(LogLevel.DEBUG, message);
     }
 
     public void warn(String message) {
-        log("WARN", message);
+        log(LogLevel.WARN, message);
     }
 
     public void error(String message) {
-        log("ERROR", message);
+        log(LogLevel.ERROR, message);
     }
 
     public void shutdown() {
-        closeLogFile();
+        stopWriter();
+        synchronized (this) {
+            closeLogFile();
+            logWriter = null;
+        }
+        // A compression cut short is redone on the next start
+        archiver.shutdown();
     }
 }
@@ -0,0 +1,81 @@
+package org.serial.serial.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free multi-producer / single-consumer ring of log entries.
+// Each slot carries a sequence number: producers claim a slot with a CAS on the tail
+// and publish it by advancing the slot sequence; the single writer thread consumes
+// slots in order. A full ring rejects the entry instead of blocking the producer.
+class LogRingBuffer {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final LogLevel[] levels;
+    private final String[] messages;
+    private final long[] timestamps;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    LogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(requestedCapacity - 1, 1)) << 1;
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        levels = new LogLevel[capacity];
+        messages = new String[capacity];
+        timestamps = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(LogLevel level, String message, long timestampMillis) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    levels[index] = level;
+                    messages[index] = message;
+                    timestamps[index] = timestampMillis;
+                    // Volatile write publishes the slot contents to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // Another producer claimed the slot first: retry with the new tail
+        }
+    }
+
+    interface EntryHandler {
+        void onEntry(LogLevel level, String message, long timestampMillis);
+    }
+
+    // Consumer side only. Returns the number of entries handed to the handler.
+    int drain(EntryHandler handler, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            LogLevel level = levels[index];
+            String message = messages[index];
+            long timestamp = timestamps[index];
+            messages[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+
+            handler.onEntry(level, message, timestamp);
+            drained++;
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
@@ -0,0 +1,36 @@
+package org.serial.serial.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Startup time and memory footprint, logged by both launchers so the GUI and
+// headless builds can be compared on the same machine
+public final class StartupReport {
+    private StartupReport() {
+    }
+
+    public static String describe() {
+        long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        long rssKb = residentSetKb();
+        return "startup " + uptimeMs + " ms, heap used " + heapUsedMb + " MiB"
+                + (rssKb >= 0 ? ", RSS " + rssKb / 1024 + " MiB" : "");
+    }
+
+    // Only available on Linux; -1 elsewhere
+    private static long residentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+            // Not Linux
+        }
+        return -1;
+    }
+}